@@ -6,13 +6,27 @@ import org.eclipse.collections.api.list.primitive.IntList;
 import org.eclipse.collections.api.list.primitive.LongList;
 import org.eclipse.collections.impl.list.mutable.FastList;
 import summary.Sketch;
+import summary.gen.PipelinedSketchGen;
 import summary.gen.SketchGen;
 
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 public class BoardGen<T, TL extends PrimitiveIterable> {
     public SketchGen<T,TL> sketchGen;
+    public ForkJoinPool pool;
+
     public BoardGen(SketchGen<T,TL> sketchGen) {
         this.sketchGen = sketchGen;
     }
+
+    /**
+     * Prepares segments ahead on pool when sketchGen supports it.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     public StoryBoard<T> generate(
             FastList<TL> segments,
             FastList<LongList> dims,
@@ -26,6 +40,14 @@ public class BoardGen<T, TL extends PrimitiveIterable> {
         int nSegments = segments.size();
 
         StoryBoard<T> board = new StoryBoard<>(ndims);
+        if (pool != null && sketchGen instanceof PipelinedSketchGen) {
+            generatePipelined(
+                    (PipelinedSketchGen<T, TL, ?>) sketchGen,
+                    board, segments, dims, sizes, biases
+            );
+            board.pack();
+            return board;
+        }
         for (int i = 0; i < nSegments; i++) {
             System.out.println("[BoardGen] Segment: "+i);
             TL curSegment = segments.get(i);
@@ -36,6 +58,56 @@ public class BoardGen<T, TL extends PrimitiveIterable> {
             );
             board.addSketches(dims.get(i), curSketches, curSegment.size());
         }
+        board.pack();
         return board;
     }
+
+    /**
+     * Independent generators run whole segments on the pool. Otherwise up to
+     * two segments per worker are prepared ahead while this thread compresses
+     * them in order.
+     */
+    <P> void generatePipelined(
+            PipelinedSketchGen<T, TL, P> gen,
+            StoryBoard<T> board,
+            FastList<TL> segments,
+            FastList<LongList> dims,
+            IntList sizes,
+            LongList biases
+    ) {
+        int nSegments = segments.size();
+        if (gen.isIndependent()) {
+            FastList<ForkJoinTask<FastList<Sketch<T>>>> tasks = new FastList<>(nSegments);
+            for (int i = 0; i < nSegments; i++) {
+                TL curSegment = segments.get(i);
+                int curSize = sizes.get(i);
+                double curBias = biases.get(i);
+                tasks.add(pool.submit(() -> gen.compress(
+                        gen.prepare(curSegment, curSize, curBias), curSize, curBias
+                )));
+            }
+            for (int i = 0; i < nSegments; i++) {
+                System.out.println("[BoardGen] Segment: "+i);
+                board.addSketches(dims.get(i), tasks.get(i).join(), segments.get(i).size());
+            }
+            return;
+        }
+
+        int window = 2 * pool.getParallelism();
+        FastList<ForkJoinTask<P>> prepared = new FastList<>(nSegments);
+        for (int i = 0; i < nSegments; i++) {
+            while (prepared.size() < nSegments && prepared.size() <= i + window) {
+                int j = prepared.size();
+                TL nextSegment = segments.get(j);
+                int nextSize = sizes.get(j);
+                double nextBias = biases.get(j);
+                prepared.add(pool.submit(() -> gen.prepare(nextSegment, nextSize, nextBias)));
+            }
+            System.out.println("[BoardGen] Segment: "+i);
+            P curPrepared = prepared.get(i).join();
+            prepared.set(i, null);
+            FastList<Sketch<T>> curSketches = gen.compress(curPrepared, sizes.get(i), biases.get(i));
+            board.addSketches(dims.get(i), curSketches, segments.get(i).size());
+        }
+    }
 }
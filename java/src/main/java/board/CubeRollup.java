@@ -0,0 +1,89 @@
+package board;
+
+import org.eclipse.collections.api.PrimitiveIterable;
+import org.eclipse.collections.api.list.primitive.IntList;
+import org.eclipse.collections.api.list.primitive.LongList;
+import org.eclipse.collections.impl.list.mutable.FastList;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.map.mutable.UnifiedMap;
+import summary.Sketch;
+import summary.accumulator.Accumulator;
+
+/**
+ * Cube board pre-aggregated over every dimension outside of dims.
+ * Rolled up dimensions hold -1, so any query that only filters on dims
+ * can run against the rollup board unchanged.
+ */
+public class CubeRollup<T> {
+    public IntArrayList dims;
+    public StoryBoard<T> board;
+
+    public CubeRollup(IntList dims, StoryBoard<T> board) {
+        this.dims = IntArrayList.newList(dims);
+        this.board = board;
+    }
+
+    /**
+     * @param base board to roll up
+     * @param dims dimensions to group by
+     * @param acc accumulator used to merge the sketches of each group
+     * @param size size each merged sketch is compressed to, 0 for no compression
+     */
+    public static <T, TL extends PrimitiveIterable> CubeRollup<T> build(
+            StoryBoard<T> base,
+            IntList dims,
+            Accumulator<T, TL> acc,
+            int size
+    ) {
+        int nDims = base.dimensionCols.size();
+        int nRows = base.numRows();
+        UnifiedMap<LongList, IntArrayList> groups = new UnifiedMap<>();
+        FastList<LongList> groupKeys = new FastList<>();
+        for (int i = 0; i < nRows; i++) {
+            LongArrayList key = LongArrayList.newWithNValues(nDims, -1);
+            for (int j = 0; j < dims.size(); j++) {
+                int curDim = dims.get(j);
+                key.set(curDim, base.dimensionCols.get(curDim).get(i));
+            }
+            IntArrayList rows = groups.get(key);
+            if (rows == null) {
+                rows = new IntArrayList();
+                groups.put(key, rows);
+                groupKeys.add(key);
+            }
+            rows.add(i);
+        }
+
+        StoryBoard<T> rollupBoard = new StoryBoard<>(nDims);
+        for (LongList key : groupKeys) {
+            IntArrayList rows = groups.get(key);
+            acc.reset();
+            double total = 0;
+            for (int k = 0; k < rows.size(); k++) {
+                total += base.totalCol.get(rows.get(k));
+            }
+            acc.addSketches(base, rows.toArray(), rows.size());
+            if (size > 0) {
+                acc.compress(size);
+            }
+            Sketch<T> merged = acc.toSketch();
+            rollupBoard.addSketch(key, 0, merged, total);
+        }
+        rollupBoard.pack();
+        return new CubeRollup<>(dims, rollupBoard);
+    }
+
+    /**
+     * @param dimensionFilters per dimension filter value, negative for no filter
+     * @return whether every filtered dimension is kept by this rollup
+     */
+    public boolean covers(LongList dimensionFilters) {
+        for (int j = 0; j < dimensionFilters.size(); j++) {
+            if (dimensionFilters.get(j) >= 0 && !dims.contains(j)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
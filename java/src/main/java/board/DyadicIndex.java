@@ -0,0 +1,65 @@
+package board;
+
+import org.eclipse.collections.api.PrimitiveIterable;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import summary.accumulator.Accumulator;
+
+/**
+ * Builds a dyadic board out of a single tier linear board, so that
+ * DyadicLinearAccProcessor can answer any range with O(log n) sketches.
+ * Tier h holds the merged sketch of the 2^h segments ending at its segment.
+ */
+public class DyadicIndex {
+    /**
+     * @param base sorted single tier board, one row per segment
+     * @param acc accumulator used to merge the sketches of each block
+     * @param maxHeight number of tiers to build
+     * @param size size each merged sketch is compressed to, 0 for no compression
+     */
+    public static <T, TL extends PrimitiveIterable> StoryBoard<T> build(
+            StoryBoard<T> base,
+            Accumulator<T, TL> acc,
+            int maxHeight,
+            int size
+    ) {
+        if (!base.sorted) {
+            throw new RuntimeException("Dyadic index needs a sorted board");
+        }
+        int nDims = base.dimensionCols.size();
+        int nRows = base.numRows();
+        LongArrayList tValues = base.dimensionCols.get(0);
+        StoryBoard<T> index = new StoryBoard<>(nDims);
+        for (int i = 0; i < nRows; i++) {
+            if (base.tierCol.get(i) != 0) {
+                throw new RuntimeException("Dyadic index needs a single tier board");
+            }
+            LongArrayList dims = new LongArrayList(nDims);
+            for (int j = 0; j < nDims; j++) {
+                dims.add(base.dimensionCols.get(j).get(i));
+            }
+            index.addSketch(dims, 0, base.getSketch(i), base.totalCol.get(i));
+
+            long curT = tValues.get(i);
+            long blockLength = 2;
+            for (int tier = 1; tier < maxHeight && (curT + 1) % blockLength == 0; tier++) {
+                acc.reset();
+                double total = 0;
+                for (int k = base.lowerBound(curT + 1 - blockLength); k <= i; k++) {
+                    if (base.packedCol != null) {
+                        acc.addPacked(base.packedCol, k);
+                    } else {
+                        acc.addSketch(base.getSketch(k));
+                    }
+                    total += base.totalCol.get(k);
+                }
+                if (size > 0) {
+                    acc.compress(size);
+                }
+                index.addSketch(dims, tier, acc.toSketch(), total);
+                blockLength *= 2;
+            }
+        }
+        index.pack();
+        return index;
+    }
+}
@@ -0,0 +1,168 @@
+package board;
+
+import io.BoardFormat;
+import org.eclipse.collections.impl.list.mutable.FastList;
+import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import summary.CounterDoubleSketch;
+import summary.CounterLongSketch;
+import summary.Sketch;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * StoryBoard backed by a memory-mapped columnar board file.
+ * The small per-row columns are read on open, while sketch rows stay in the
+ * page cache and are only materialized when a processor asks for them.
+ */
+public class MappedStoryBoard<T> extends StoryBoard<T> {
+    private static final long serialVersionUID = 7574012126949041140L;
+    static final long CHUNK_BYTES = 1L << 30;
+
+    public BoardFormat.Header header;
+    public boolean sortedValues;
+    transient MappedByteBuffer offsetsBuffer;
+    transient MappedByteBuffer[] valueChunks;
+    transient MappedByteBuffer[] weightChunks;
+
+    public MappedStoryBoard(File f) throws IOException {
+        super(0);
+        try (FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            header = BoardFormat.Header.read(
+                    ch.map(FileChannel.MapMode.READ_ONLY, 0, BoardFormat.HEADER_BYTES)
+            );
+            int nRows = header.nRows;
+            int nDims = header.nDims;
+            sorted = (header.flags & BoardFormat.FLAG_SORTED) != 0;
+            sortedValues = (header.flags & BoardFormat.FLAG_SORTED_VALUES) != 0;
+
+            MappedByteBuffer dimBuffer = map(ch, header.dimsStart(), header.tierStart());
+            dimensionCols = new FastList<>(nDims);
+            for (int j = 0; j < nDims; j++) {
+                long[] dimValues = new long[nRows];
+                dimBuffer.asLongBuffer().get(dimValues);
+                dimBuffer.position(dimBuffer.position() + 8 * nRows);
+                dimensionCols.add(LongArrayList.newListWith(dimValues));
+            }
+            int[] tiers = new int[nRows];
+            map(ch, header.tierStart(), header.totalStart()).asIntBuffer().get(tiers);
+            tierCol = IntArrayList.newListWith(tiers);
+            double[] totals = new double[nRows];
+            map(ch, header.totalStart(), header.offsetsStart()).asDoubleBuffer().get(totals);
+            totalCol = DoubleArrayList.newListWith(totals);
+
+            offsetsBuffer = map(ch, header.offsetsStart(), header.valuesStart());
+            if (header.sketchType == BoardFormat.TYPE_SERIALIZED) {
+                valueChunks = mapChunks(ch, header.valuesStart(), header.nItems);
+            } else {
+                valueChunks = mapChunks(ch, header.valuesStart(), 8 * header.nItems);
+                weightChunks = mapChunks(ch, header.weightsStart(), 8 * header.nItems);
+            }
+        }
+    }
+
+    static MappedByteBuffer map(FileChannel ch, long start, long end) throws IOException {
+        MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        buf.order(ByteOrder.LITTLE_ENDIAN);
+        return buf;
+    }
+
+    static MappedByteBuffer[] mapChunks(FileChannel ch, long start, long nBytes) throws IOException {
+        int nChunks = (int) ((nBytes + CHUNK_BYTES - 1) / CHUNK_BYTES);
+        MappedByteBuffer[] chunks = new MappedByteBuffer[nChunks];
+        for (int i = 0; i < nChunks; i++) {
+            long chunkStart = start + i * CHUNK_BYTES;
+            long chunkEnd = Math.min(start + nBytes, chunkStart + CHUNK_BYTES);
+            chunks[i] = map(ch, chunkStart, chunkEnd);
+        }
+        return chunks;
+    }
+
+    static void getLongs(MappedByteBuffer[] chunks, long byteOffset, long[] dst) {
+        int copied = 0;
+        while (copied < dst.length) {
+            MappedByteBuffer chunk = chunks[(int) (byteOffset / CHUNK_BYTES)];
+            int chunkOffset = (int) (byteOffset % CHUNK_BYTES);
+            int n = Math.min(dst.length - copied, (chunk.capacity() - chunkOffset) / 8);
+            chunk.duplicate().order(ByteOrder.LITTLE_ENDIAN)
+                    .position(chunkOffset).asLongBuffer().get(dst, copied, n);
+            copied += n;
+            byteOffset += 8L * n;
+        }
+    }
+
+    static void getDoubles(MappedByteBuffer[] chunks, long byteOffset, double[] dst) {
+        int copied = 0;
+        while (copied < dst.length) {
+            MappedByteBuffer chunk = chunks[(int) (byteOffset / CHUNK_BYTES)];
+            int chunkOffset = (int) (byteOffset % CHUNK_BYTES);
+            int n = Math.min(dst.length - copied, (chunk.capacity() - chunkOffset) / 8);
+            chunk.duplicate().order(ByteOrder.LITTLE_ENDIAN)
+                    .position(chunkOffset).asDoubleBuffer().get(dst, copied, n);
+            copied += n;
+            byteOffset += 8L * n;
+        }
+    }
+
+    static void getBytes(MappedByteBuffer[] chunks, long byteOffset, byte[] dst) {
+        int copied = 0;
+        while (copied < dst.length) {
+            MappedByteBuffer chunk = chunks[(int) (byteOffset / CHUNK_BYTES)];
+            int chunkOffset = (int) (byteOffset % CHUNK_BYTES);
+            int n = Math.min(dst.length - copied, chunk.capacity() - chunkOffset);
+            chunk.duplicate().position(chunkOffset).get(dst, copied, n);
+            copied += n;
+            byteOffset += n;
+        }
+    }
+
+    public long rowStart(int row) {
+        return offsetsBuffer.getLong(8 * row);
+    }
+
+    public int rowSize(int row) {
+        return (int) (rowStart(row + 1) - rowStart(row));
+    }
+
+    @Override
+    public int numRows() {
+        return header.nRows;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Sketch<T> getSketch(int row) {
+        long start = rowStart(row);
+        int n = rowSize(row);
+        if (header.sketchType == BoardFormat.TYPE_COUNTER_LONG) {
+            long[] values = new long[n];
+            double[] weights = new double[n];
+            getLongs(valueChunks, 8 * start, values);
+            getDoubles(weightChunks, 8 * start, weights);
+            return (Sketch<T>) new CounterLongSketch(values, weights, sortedValues);
+        } else if (header.sketchType == BoardFormat.TYPE_COUNTER_DOUBLE) {
+            double[] values = new double[n];
+            double[] weights = new double[n];
+            getDoubles(valueChunks, 8 * start, values);
+            getDoubles(weightChunks, 8 * start, weights);
+            return (Sketch<T>) new CounterDoubleSketch(values, weights);
+        } else {
+            byte[] blob = new byte[n];
+            getBytes(valueChunks, start, blob);
+            try {
+                ObjectInputStream oIn = new ObjectInputStream(new ByteArrayInputStream(blob));
+                return (Sketch<T>) oIn.readObject();
+            } catch (IOException | ClassNotFoundException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+}
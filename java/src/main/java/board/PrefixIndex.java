@@ -0,0 +1,89 @@
+package board;
+
+import org.eclipse.collections.api.PrimitiveIterable;
+import org.eclipse.collections.impl.list.mutable.FastList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import summary.Sketch;
+import summary.accumulator.Accumulator;
+import summary.accumulator.ListQuantileAccumulator;
+import summary.accumulator.MapFreqAccumulator;
+import summary.accumulator.MapQuantileAccumulator;
+import summary.accumulator.SortedQuantileAccumulator;
+
+/**
+ * Cumulative checkpoints over a sorted linear board.
+ * Checkpoint c holds the merged sketch of every segment before c * stride,
+ * so for additive sketches a range [a, b) can be answered as Prefix(b) - Prefix(a).
+ */
+public class PrefixIndex<T> {
+    public int stride;
+    public StoryBoard<T> board;
+    public FastList<Sketch<T>> checkpoints;
+
+    public PrefixIndex(int stride, StoryBoard<T> board) {
+        this.stride = stride;
+        this.board = board;
+        int nCheckpoints = board.numRows();
+        checkpoints = new FastList<>(nCheckpoints);
+        for (int c = 0; c < nCheckpoints; c++) {
+            checkpoints.add(board.getSketch(c));
+        }
+    }
+
+    public int numCheckpoints() {
+        return checkpoints.size();
+    }
+
+    /**
+     * @return whether acc merges counter sketches additively, which the
+     * checkpoint differences rely on
+     */
+    public static boolean supports(Accumulator<?, ?> acc) {
+        return acc instanceof MapFreqAccumulator
+                || acc instanceof ListQuantileAccumulator
+                || acc instanceof SortedQuantileAccumulator
+                || acc instanceof MapQuantileAccumulator;
+    }
+
+    /**
+     * @param base sorted linear board
+     * @param acc accumulator used to merge the sketches, must not compress
+     * @param stride number of segments between checkpoints
+     */
+    public static <T, TL extends PrimitiveIterable> PrefixIndex<T> build(
+            StoryBoard<T> base,
+            Accumulator<T, TL> acc,
+            int stride
+    ) {
+        if (!base.sorted) {
+            throw new RuntimeException("Prefix index needs a sorted board");
+        }
+        if (!supports(acc)) {
+            throw new RuntimeException("Prefix index needs an additive accumulator: "+acc.getClass().getCanonicalName());
+        }
+        int nRows = base.numRows();
+        LongArrayList tValues = base.dimensionCols.get(0);
+        StoryBoard<T> checkpointBoard = new StoryBoard<>(1);
+        acc.reset();
+        double total = 0;
+        int row = 0;
+        for (long c = 0; ; c++) {
+            long endT = c * stride;
+            while (row < nRows && tValues.get(row) < endT) {
+                if (base.packedCol != null) {
+                    acc.addPacked(base.packedCol, row);
+                } else {
+                    acc.addSketch(base.getSketch(row));
+                }
+                total += base.totalCol.get(row);
+                row++;
+            }
+            checkpointBoard.addSketch(LongArrayList.newListWith(c), 0, acc.toSketch(), total);
+            if (row >= nRows) {
+                break;
+            }
+        }
+        checkpointBoard.pack();
+        return new PrefixIndex<>(stride, checkpointBoard);
+    }
+}
@@ -6,16 +6,32 @@ import org.eclipse.collections.impl.list.mutable.FastList;
 import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
 import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
 import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.LongIntHashMap;
+import org.eclipse.collections.impl.map.mutable.primitive.LongObjectHashMap;
+import org.roaringbitmap.RoaringBitmap;
+import summary.PackedCounters;
 import summary.Sketch;
+import summary.SketchRows;
 
 import java.io.Serializable;
 import java.util.List;
 
-public class StoryBoard<T> implements Serializable {
+public class StoryBoard<T> implements Serializable, SketchRows<T> {
+    private static final long serialVersionUID = 8390076518559013284L;
+
     public FastList<LongArrayList> dimensionCols;
     public FastList<Sketch<T>> sketchCol;
     public DoubleArrayList totalCol;
     public IntArrayList tierCol;
+    public PackedCounters packedCol;
+    // rows are in non-decreasing order of the first dimension
+    public boolean sorted;
+    // indexes are built under the board lock and published once complete,
+    // so query threads never see a partly built one
+    // per tier, maps the first dimension value to its row
+    transient volatile FastList<LongIntHashMap> tierIndex;
+    // per dimension, maps each value to the rows holding it
+    transient volatile FastList<LongObjectHashMap<RoaringBitmap>> dimensionIndex;
 
     public StoryBoard(int numDims) {
         dimensionCols = new FastList<>(numDims);
@@ -25,18 +41,152 @@ public class StoryBoard<T> implements Serializable {
         sketchCol = new FastList<>();
         totalCol = new DoubleArrayList();
         tierCol = new IntArrayList();
+        sorted = true;
     }
 
     public void addSketches(LongList dims, List<Sketch<T>> sketches, double total) {
-        int numDims = dimensionCols.size();
         int numSketches = sketches.size();
         for (int j = 0; j < numSketches; j++) {
-            for (int i = 0; i < numDims; i++) {
-                dimensionCols.get(i).add(dims.get(i));
+            addSketch(dims, j, sketches.get(j), total * FastMath.pow(2, j));
+        }
+    }
+
+    public void addSketch(LongList dims, int tier, Sketch<T> sketch, double total) {
+        if (packedCol != null) {
+            throw new RuntimeException("Cannot add sketches to a packed board");
+        }
+        int numDims = dimensionCols.size();
+        if (numDims > 0) {
+            LongArrayList firstDimCol = dimensionCols.get(0);
+            if (!firstDimCol.isEmpty() && dims.get(0) < firstDimCol.getLast()) {
+                sorted = false;
+            }
+        }
+        for (int i = 0; i < numDims; i++) {
+            dimensionCols.get(i).add(dims.get(i));
+        }
+        tierCol.add(tier);
+        sketchCol.add(sketch);
+        totalCol.add(total);
+    }
+
+    public int numRows() {
+        return tierCol.size();
+    }
+
+    /**
+     * Only valid on sorted boards.
+     * @param x value of the first dimension
+     * @return index of the first row whose first dimension is >= x
+     */
+    public int lowerBound(long x) {
+        LongArrayList firstDimCol = dimensionCols.get(0);
+        int lo = 0;
+        int hi = firstDimCol.size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (firstDimCol.get(mid) < x) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
             }
-            tierCol.add(j);
-            sketchCol.add(sketches.get(j));
-            totalCol.add(total * FastMath.pow(2, j));
+        }
+        return lo;
+    }
+
+    public synchronized void buildTierIndex() {
+        if (tierIndex != null) {
+            return;
+        }
+        int nRows = numRows();
+        int nTiers = tierCol.isEmpty() ? 0 : tierCol.max() + 1;
+        LongArrayList firstDimCol = dimensionCols.get(0);
+        FastList<LongIntHashMap> newIndex = new FastList<>(nTiers);
+        for (int i = 0; i < nTiers; i++) {
+            newIndex.add(new LongIntHashMap());
+        }
+        for (int i = 0; i < nRows; i++) {
+            newIndex.get(tierCol.get(i)).put(firstDimCol.get(i), i);
+        }
+        tierIndex = newIndex;
+    }
+
+    /**
+     * Assumes each (tier, first dimension) pair appears at most once,
+     * as in dyadic boards.
+     * @return row holding the given tier and first dimension value, or -1
+     */
+    public int findRow(int tier, long x) {
+        FastList<LongIntHashMap> curIndex = tierIndex;
+        if (curIndex == null) {
+            buildTierIndex();
+            curIndex = tierIndex;
+        }
+        if (tier >= curIndex.size()) {
+            return -1;
+        }
+        return curIndex.get(tier).getIfAbsent(x, -1);
+    }
+
+    public synchronized void buildDimensionIndex() {
+        if (dimensionIndex != null) {
+            return;
+        }
+        int nDims = dimensionCols.size();
+        FastList<LongObjectHashMap<RoaringBitmap>> newIndex = new FastList<>(nDims);
+        for (int j = 0; j < nDims; j++) {
+            LongArrayList curDimCol = dimensionCols.get(j);
+            LongObjectHashMap<RoaringBitmap> curDimIndex = new LongObjectHashMap<>();
+            for (int i = 0; i < curDimCol.size(); i++) {
+                curDimIndex.getIfAbsentPut(curDimCol.get(i), RoaringBitmap::new).add(i);
+            }
+            curDimIndex.forEachValue(RoaringBitmap::runOptimize);
+            newIndex.add(curDimIndex);
+        }
+        dimensionIndex = newIndex;
+    }
+
+    /**
+     * @return rows whose given dimension equals x, shared with the index so callers must not modify it
+     */
+    public RoaringBitmap getDimensionRows(int dim, long x) {
+        FastList<LongObjectHashMap<RoaringBitmap>> curIndex = dimensionIndex;
+        if (curIndex == null) {
+            buildDimensionIndex();
+            curIndex = dimensionIndex;
+        }
+        RoaringBitmap rows = curIndex.get(dim).get(x);
+        if (rows == null) {
+            return new RoaringBitmap();
+        }
+        return rows;
+    }
+
+    @Override
+    public PackedCounters getPackedCounters() {
+        return packedCol;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Sketch<T> getSketch(int row) {
+        if (packedCol != null) {
+            return (Sketch<T>) packedCol.getSketch(row);
+        }
+        return sketchCol.get(row);
+    }
+
+    /**
+     * Moves counter sketches into flat value / weight arrays.
+     * Boards holding other sketch types are left as is.
+     */
+    public void pack() {
+        if (packedCol != null) {
+            return;
+        }
+        packedCol = PackedCounters.pack(sketchCol);
+        if (packedCol != null) {
+            sketchCol = null;
         }
     }
 
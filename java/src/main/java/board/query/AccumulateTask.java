@@ -0,0 +1,58 @@
+package board.query;
+
+import board.StoryBoard;
+import org.eclipse.collections.api.PrimitiveIterable;
+import summary.accumulator.Accumulator;
+
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Supplier;
+
+/**
+ * Accumulates a range of board rows by splitting it in halves, filling a
+ * fresh accumulator per leaf and merging the partial accumulators on the way up.
+ * Partials are never compressed, so the result matches a sequential scan.
+ */
+public class AccumulateTask<T, TL extends PrimitiveIterable> extends
+        RecursiveTask<Accumulator<T, TL>> {
+    private static final long serialVersionUID = 7406873503728405608L;
+    public static final int MIN_TASK_ROWS = 32;
+
+    StoryBoard<T> board;
+    int[] rows;
+    int start, end;
+    Supplier<Accumulator<T, TL>> accGen;
+
+    public AccumulateTask(
+            StoryBoard<T> board,
+            int[] rows,
+            int start,
+            int end,
+            Supplier<Accumulator<T, TL>> accGen
+    ) {
+        this.board = board;
+        this.rows = rows;
+        this.start = start;
+        this.end = end;
+        this.accGen = accGen;
+    }
+
+    @Override
+    protected Accumulator<T, TL> compute() {
+        if (end - start <= MIN_TASK_ROWS) {
+            Accumulator<T, TL> acc = accGen.get();
+            acc.addSketches(board, rows, start, end);
+            return acc;
+        }
+        int mid = (start + end) >>> 1;
+        AccumulateTask<T, TL> left = new AccumulateTask<>(
+                board, rows, start, mid, accGen
+        );
+        left.fork();
+        Accumulator<T, TL> rightAcc = new AccumulateTask<>(
+                board, rows, mid, end, accGen
+        ).compute();
+        Accumulator<T, TL> acc = left.join();
+        acc.merge(rightAcc);
+        return acc;
+    }
+}
@@ -4,14 +4,13 @@ import board.StoryBoard;
 import org.eclipse.collections.api.PrimitiveIterable;
 import org.eclipse.collections.api.list.primitive.DoubleList;
 import org.eclipse.collections.api.list.primitive.LongList;
-import org.eclipse.collections.impl.list.mutable.FastList;
-import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
-import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
-import summary.Sketch;
+import org.roaringbitmap.IntIteratorFlyweight;
+import org.roaringbitmap.RoaringBitmap;
 import summary.accumulator.Accumulator;
 
-import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
 public class CubeAccProcessor<T, TL extends PrimitiveIterable> implements
         CubeQueryProcessor<T> {
@@ -20,6 +19,12 @@ public class CubeAccProcessor<T, TL extends PrimitiveIterable> implements
     public int span;
     public double total;
 
+    public ForkJoinPool pool;
+    public Supplier<Accumulator<T, TL>> accGen;
+    int[] rowScratch = new int[0];
+    RoaringBitmap[] filterRows = new RoaringBitmap[0];
+    IntIteratorFlyweight rowIter = new IntIteratorFlyweight();
+
     public CubeAccProcessor(
             Accumulator<T, TL> acc
     ) {
@@ -27,41 +32,108 @@ public class CubeAccProcessor<T, TL extends PrimitiveIterable> implements
         this.span = 0;
     }
 
+    public CubeAccProcessor(
+            Supplier<Accumulator<T, TL>> accGen
+    ) {
+        this(accGen.get());
+        this.accGen = accGen;
+    }
+
+    /**
+     * Splits each query across pool, requires accumulators from accGen.
+     */
+    public void setPool(ForkJoinPool pool) {
+        if (accGen == null) {
+            throw new RuntimeException("Parallel queries need an accumulator supplier");
+        }
+        this.pool = pool;
+    }
+
     @Override
     public DoubleList query(
             StoryBoard<T> board,
             List<T> xToTrack
     ) {
+        return accumulate(board).estimate(xToTrack);
+    }
+
+    @Override
+    public void query(StoryBoard<T> board, List<T> xToTrack, double[] out) {
+        accumulate(board).estimate(xToTrack, out);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void query(StoryBoard<T> board, PrimitiveIterable xToTrack, double[] out) {
+        accumulate(board).estimate((TL) xToTrack, out);
+    }
+
+    /**
+     * Collects the rows matching every filter by walking the smallest filter
+     * bitmap and probing the others, then accumulates them in one batch.
+     * @return accumulator holding the matched rows
+     */
+    public Accumulator<T, TL> accumulate(StoryBoard<T> board) {
         acc.reset();
         span=0;
         total=0;
-        FastList<Sketch<T>> sketchCol = board.sketchCol;
-        int nRows = sketchCol.size();
+        int nRows = board.numRows();
         int nDims = dimensionFilters.length;
 
-        int[] failedConditions = new int[nRows];
+        if (filterRows.length < nDims) {
+            filterRows = new RoaringBitmap[nDims];
+        }
+        int nFilters = 0;
         for (int j = 0; j < nDims; j++) {
             long curFilterValue = dimensionFilters[j];
             if (curFilterValue >= 0) {
-                LongArrayList curDimCol = board.dimensionCols.get(j);
-                for (int i = 0; i < nRows; i++) {
-                    if (curDimCol.get(i) != curFilterValue) {
-                        failedConditions[i]++;
-                    }
+                RoaringBitmap curRows = board.getDimensionRows(j, curFilterValue);
+                if (nFilters > 0 && curRows.getCardinality() < filterRows[0].getCardinality()) {
+                    filterRows[nFilters++] = filterRows[0];
+                    filterRows[0] = curRows;
+                } else {
+                    filterRows[nFilters++] = curRows;
                 }
             }
         }
 
-        DoubleArrayList totalCol = board.totalCol;
-        for (int i = 0; i < nRows; i++) {
-            if (failedConditions[i] == 0) {
-                span++;
-                Sketch<T> curSketch = sketchCol.get(i);
-                acc.addSketch(curSketch);
-                total += totalCol.get(i);
+        int count = 0;
+        if (nFilters == 0) {
+            count = nRows;
+            if (rowScratch.length < count) {
+                rowScratch = new int[count];
+            }
+            for (int i = 0; i < nRows; i++) {
+                rowScratch[i] = i;
             }
+        } else {
+            if (rowScratch.length < filterRows[0].getCardinality()) {
+                rowScratch = new int[filterRows[0].getCardinality()];
+            }
+            rowIter.wrap(filterRows[0]);
+            while (rowIter.hasNext()) {
+                int i = rowIter.next();
+                boolean matches = true;
+                for (int f = 1; f < nFilters && matches; f++) {
+                    matches = filterRows[f].contains(i);
+                }
+                if (matches) {
+                    rowScratch[count++] = i;
+                }
+            }
+        }
+        for (int k = 0; k < count; k++) {
+            total += board.totalCol.get(rowScratch[k]);
+        }
+        span = count;
+
+        if (pool != null) {
+            return pool.invoke(new AccumulateTask<>(
+                    board, rowScratch, 0, count, accGen
+            ));
         }
-        return acc.estimate(xToTrack);
+        acc.addSketches(board, rowScratch, count);
+        return acc;
     }
 
     @Override
@@ -76,6 +148,11 @@ public class CubeAccProcessor<T, TL extends PrimitiveIterable> implements
 
     @Override
     public void setDimensions(LongList dims) {
-        dimensionFilters = dims.toArray();
+        if (dimensionFilters == null || dimensionFilters.length != dims.size()) {
+            dimensionFilters = new long[dims.size()];
+        }
+        for (int j = 0; j < dimensionFilters.length; j++) {
+            dimensionFilters[j] = dims.get(j);
+        }
     }
 }
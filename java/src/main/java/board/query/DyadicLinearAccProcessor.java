@@ -7,8 +7,10 @@ import org.eclipse.collections.api.list.primitive.LongList;
 import org.eclipse.collections.impl.list.mutable.FastList;
 import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
 import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import summary.PackedCounters;
 import summary.accumulator.Accumulator;
 
+import java.util.Arrays;
 import java.util.List;
 
 public class DyadicLinearAccProcessor<T, TL extends PrimitiveIterable> implements
@@ -20,6 +22,7 @@ public class DyadicLinearAccProcessor<T, TL extends PrimitiveIterable> implement
     public int accumulatorSize;
     public int span;
     public double total;
+    int[] rowScratch = new int[0];
 
     public DyadicLinearAccProcessor(
             Accumulator<T, TL> acc, int maxHeight, int accumulatorSize
@@ -37,48 +40,98 @@ public class DyadicLinearAccProcessor<T, TL extends PrimitiveIterable> implement
             tierIndices.add(new LongArrayList());
         }
         while (startIdx < endIdx) {
-            int tierIdx = 0;
-            long curTierLength = 1;
-            while (
-                    (tierIdx+1 < maxHeight)
-                            && (startIdx % (curTierLength*base) == 0)
-                            && (startIdx + (curTierLength*base) < endIdx)
-            ) {
-                tierIdx++;
-                curTierLength *= base;
-            }
+            int tierIdx = getTier(startIdx, endIdx);
+            long curTierLength = tierLength(tierIdx);
             tierIndices.get(tierIdx).add(startIdx+curTierLength-1);
             startIdx += curTierLength;
         }
         return tierIndices;
     }
 
+    /**
+     * @return tier of the largest dyadic interval starting at startIdx inside [startIdx, endIdx)
+     */
+    int getTier(int startIdx, int endIdx) {
+        int tierIdx = 0;
+        long curTierLength = 1;
+        while (
+                (tierIdx+1 < maxHeight)
+                        && (startIdx % (curTierLength*base) == 0)
+                        && (startIdx + (curTierLength*base) < endIdx)
+        ) {
+            tierIdx++;
+            curTierLength *= base;
+        }
+        return tierIdx;
+    }
+
+    long tierLength(int tierIdx) {
+        long curTierLength = 1;
+        for (int i = 0; i < tierIdx; i++) {
+            curTierLength *= base;
+        }
+        return curTierLength;
+    }
+
     @Override
     public DoubleList query(
             StoryBoard<T> board,
             List<T> xToTrack
     ) {
+        return accumulate(board).estimate(xToTrack);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void query(StoryBoard<T> board, PrimitiveIterable xToTrack, double[] out) {
+        accumulate(board).estimate((TL) xToTrack, out);
+    }
+
+    /**
+     * @return accumulator holding the dyadic rows covering [startIdx, endIdx)
+     */
+    public Accumulator<T, TL> accumulate(StoryBoard<T> board) {
         acc.reset();
         span=0;
         total = 0;
-        LongList tValues = board.dimensionCols.get(0);
         DoubleArrayList totalCol = board.totalCol;
+        PackedCounters packedCol = board.packedCol;
 
-        FastList<LongArrayList> tierIndices = getDyadicBreakdown(startIdx, endIdx);
-        for (int i = 0; i < tValues.size(); i++) {
-            long curT = tValues.get(i);
-            int curTier = board.tierCol.get(i);
-            LongList curTierLocations = tierIndices.get(curTier);
-            boolean matched = curTierLocations.anySatisfy((long x) -> (x == curT));
-            if (matched) {
-                acc.addSketch(board.sketchCol.get(i));
-                span++;
-                if (accumulatorSize > 0) {
-                    acc.compress(accumulatorSize);
+        // walks the dyadic breakdown directly, collecting rows into rowScratch
+        int count = 0;
+        int curIdx = startIdx;
+        while (curIdx < endIdx) {
+            int curTier = getTier(curIdx, endIdx);
+            long curTierLength = tierLength(curTier);
+            int row = board.findRow(curTier, curIdx+curTierLength-1);
+            if (row >= 0) {
+                if (count == rowScratch.length) {
+                    rowScratch = Arrays.copyOf(rowScratch, Math.max(16, 2 * count));
                 }
+                rowScratch[count++] = row;
+            }
+            curIdx += curTierLength;
+        }
+        // visit rows in board order so compression sees the same sequence as a scan
+        Arrays.sort(rowScratch, 0, count);
+        for (int j = 0; j < count; j++) {
+            total += totalCol.get(rowScratch[j]);
+        }
+        span = count;
+        if (accumulatorSize == 0) {
+            acc.addSketches(board, rowScratch, count);
+            return acc;
+        }
+        for (int j = 0; j < count; j++) {
+            int i = rowScratch[j];
+            if (packedCol != null) {
+                acc.addPacked(packedCol, i);
+            } else {
+                acc.addSketch(board.getSketch(i));
             }
+            acc.compress(accumulatorSize);
         }
-        return acc.estimate(xToTrack);
+        return acc;
     }
 
     @Override
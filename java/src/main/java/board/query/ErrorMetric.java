@@ -6,25 +6,42 @@ import org.eclipse.collections.api.list.primitive.DoubleList;
 import org.eclipse.collections.api.map.MutableMap;
 
 public class ErrorMetric {
+    public static final String[] ERROR_NAMES = {"mean", "rmse", "max"};
+
     public static MutableMap<String, Double> calcErrors(
             DoubleList trueValues,
             DoubleList estValues
+    ) {
+        double[] errors = new double[ERROR_NAMES.length];
+        calcErrors(trueValues, estValues.toArray(), errors);
+        MutableMap<String, Double> results = Maps.mutable.of(
+                "mean", errors[0],
+                "rmse", errors[1],
+                "max", errors[2]
+        );
+        return results;
+    }
+
+    /**
+     * Writes the errors named by ERROR_NAMES into out.
+     */
+    public static void calcErrors(
+            DoubleList trueValues,
+            double[] estValues,
+            double[] out
     ) {
         int n = trueValues.size();
         double sum=0, sq_sum=0, max=0;
         for (int i = 0; i < n; i++) {
-            double curError = FastMath.abs(trueValues.get(i) - estValues.get(i));
+            double curError = FastMath.abs(trueValues.get(i) - estValues[i]);
             sum += curError;
             sq_sum += curError*curError;
             if (curError > max) {
                 max = curError;
             }
         }
-        MutableMap<String, Double> results = Maps.mutable.of(
-                "mean", sum/n,
-                "rmse", Math.sqrt(sq_sum/n),
-                "max", max
-        );
-        return results;
+        out[0] = sum/n;
+        out[1] = Math.sqrt(sq_sum/n);
+        out[2] = max;
     }
 }
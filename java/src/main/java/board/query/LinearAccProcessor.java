@@ -3,12 +3,18 @@ package board.query;
 import board.StoryBoard;
 import org.eclipse.collections.api.PrimitiveIterable;
 import org.eclipse.collections.api.list.primitive.DoubleList;
+import org.eclipse.collections.api.list.primitive.IntList;
 import org.eclipse.collections.api.list.primitive.LongList;
+import org.eclipse.collections.impl.list.mutable.FastList;
 import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
+import summary.PackedCounters;
 import summary.Sketch;
 import summary.accumulator.Accumulator;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Supplier;
 
 public class LinearAccProcessor<T, TL extends PrimitiveIterable> implements
         LinearQueryProcessor<T> {
@@ -18,6 +24,10 @@ public class LinearAccProcessor<T, TL extends PrimitiveIterable> implements
     public int span;
     public double total;
 
+    public ForkJoinPool pool;
+    public Supplier<Accumulator<T, TL>> accGen;
+    int[] rowScratch = new int[0];
+
     public LinearAccProcessor(
             Accumulator<T, TL> acc,
             int accumulatorSize
@@ -28,29 +38,179 @@ public class LinearAccProcessor<T, TL extends PrimitiveIterable> implements
         this.total = 0;
     }
 
+    public LinearAccProcessor(
+            Supplier<Accumulator<T, TL>> accGen,
+            int accumulatorSize
+    ) {
+        this(accGen.get(), accumulatorSize);
+        this.accGen = accGen;
+    }
+
+    /**
+     * Splits each query across pool, requires accumulators from accGen.
+     * Only used when accumulatorSize is 0, since compressing partial
+     * accumulators would change the results of the sequential scan.
+     */
+    public void setPool(ForkJoinPool pool) {
+        if (accGen == null) {
+            throw new RuntimeException("Parallel queries need an accumulator supplier");
+        }
+        this.pool = pool;
+    }
+
     @Override
     public DoubleList query(
             StoryBoard<T> board,
             List<T> xToTrack
     ) {
+        return accumulate(board).estimate(xToTrack);
+    }
+
+    @Override
+    public void query(StoryBoard<T> board, List<T> xToTrack, double[] out) {
+        accumulate(board).estimate(xToTrack, out);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void query(StoryBoard<T> board, PrimitiveIterable xToTrack, double[] out) {
+        accumulate(board).estimate((TL) xToTrack, out);
+    }
+
+    /**
+     * @return accumulator holding the rows of [startIdx, endIdx)
+     */
+    public Accumulator<T, TL> accumulate(StoryBoard<T> board) {
         acc.reset();
         span = 0;
         total = 0;
         LongList tValues = board.dimensionCols.get(0);
         DoubleArrayList totalCol = board.totalCol;
-        for (int i = 0; i < tValues.size(); i++) {
+        PackedCounters packedCol = board.packedCol;
+        int startRow = 0;
+        int endRow = tValues.size();
+        if (board.sorted) {
+            startRow = board.lowerBound(startIdx);
+            endRow = board.lowerBound(endIdx);
+        }
+        if (accumulatorSize == 0) {
+            // matching rows are handed over in one batch when nothing compresses in between
+            if (rowScratch.length < endRow - startRow) {
+                rowScratch = new int[endRow - startRow];
+            }
+            int count = 0;
+            for (int i = startRow; i < endRow; i++) {
+                long curT = tValues.get(i);
+                if (curT >= startIdx && curT < endIdx) {
+                    rowScratch[count++] = i;
+                    total += totalCol.get(i);
+                }
+            }
+            span = count;
+            if (pool != null) {
+                return pool.invoke(new AccumulateTask<>(
+                        board, rowScratch, 0, count, accGen
+                ));
+            }
+            acc.addSketches(board, rowScratch, count);
+            return acc;
+        }
+        for (int i = startRow; i < endRow; i++) {
             long curT = tValues.get(i);
             if (curT >= startIdx && curT < endIdx) {
-                Sketch<T> curSketch = board.sketchCol.get(i);
-                acc.addSketch(curSketch);
+                if (packedCol != null) {
+                    acc.addPacked(packedCol, i);
+                } else {
+                    acc.addSketch(board.getSketch(i));
+                }
                 span++;
                 total += totalCol.get(i);
+                acc.compress(accumulatorSize);
+            }
+        }
+        return acc;
+    }
+
+    /**
+     * Sweeps a sorted board once, keeping the intervals that cover the current
+     * time active and adding each row to all of their accumulators.
+     */
+    @Override
+    public FastList<DoubleList> queryBatch(
+            StoryBoard<T> board,
+            List<T> xToTrack,
+            List<IntList> intervals,
+            double[] totals,
+            int[] spans
+    ) {
+        if (!board.sorted || accGen == null) {
+            return LinearQueryProcessor.super.queryBatch(board, xToTrack, intervals, totals, spans);
+        }
+        int nIntervals = intervals.size();
+        FastList<Accumulator<T, TL>> accs = new FastList<>(nIntervals);
+        int[] ends = new int[nIntervals];
+        long[] startKeys = new long[nIntervals];
+        int minStart = Integer.MAX_VALUE;
+        int maxEnd = Integer.MIN_VALUE;
+        for (int k = 0; k < nIntervals; k++) {
+            accs.add(accGen.get());
+            int curStart = intervals.get(k).get(0);
+            ends[k] = intervals.get(k).get(1);
+            startKeys[k] = ((long) curStart << 32) | k;
+            minStart = Math.min(minStart, curStart);
+            maxEnd = Math.max(maxEnd, ends[k]);
+            totals[k] = 0;
+            spans[k] = 0;
+        }
+        Arrays.sort(startKeys);
+
+        LongList tValues = board.dimensionCols.get(0);
+        DoubleArrayList totalCol = board.totalCol;
+        PackedCounters packedCol = board.packedCol;
+        // intervals covering the current row, compacted in place as they end
+        int[] active = new int[nIntervals];
+        int nActive = 0;
+        int nextInterval = 0;
+        int startRow = nIntervals == 0 ? 0 : board.lowerBound(minStart);
+        int endRow = nIntervals == 0 ? 0 : board.lowerBound(maxEnd);
+        for (int i = startRow; i < endRow; i++) {
+            long curT = tValues.get(i);
+            while (nextInterval < nIntervals && (startKeys[nextInterval] >> 32) <= curT) {
+                active[nActive++] = (int) startKeys[nextInterval];
+                nextInterval++;
+            }
+            if (nActive == 0) {
+                continue;
+            }
+            Sketch<T> curSketch = packedCol == null ? board.getSketch(i) : null;
+            double curTotal = totalCol.get(i);
+            int nKept = 0;
+            for (int a = 0; a < nActive; a++) {
+                int k = active[a];
+                if (ends[k] <= curT) {
+                    continue;
+                }
+                active[nKept++] = k;
+                Accumulator<T, TL> curAcc = accs.get(k);
+                if (packedCol != null) {
+                    curAcc.addPacked(packedCol, i);
+                } else {
+                    curAcc.addSketch(curSketch);
+                }
+                spans[k]++;
+                totals[k] += curTotal;
                 if (accumulatorSize > 0) {
-                    acc.compress(accumulatorSize);
+                    curAcc.compress(accumulatorSize);
                 }
             }
+            nActive = nKept;
+        }
+
+        FastList<DoubleList> results = new FastList<>(nIntervals);
+        for (int k = 0; k < nIntervals; k++) {
+            results.add(accs.get(k).estimate(xToTrack));
         }
-        return acc.estimate(xToTrack);
+        return results;
     }
 
     @Override
@@ -1,5 +1,37 @@
 package board.query;
 
+import board.StoryBoard;
+import org.eclipse.collections.api.list.primitive.DoubleList;
+import org.eclipse.collections.api.list.primitive.IntList;
+import org.eclipse.collections.impl.list.mutable.FastList;
+
+import java.util.List;
+
 public interface LinearQueryProcessor<T> extends QueryProcessor<T> {
     void setRange(int startIdx, int endIdx);
+
+    /**
+     * Answers many [startIdx, endIdx) intervals at once.
+     * @param totals filled with the total of each interval
+     * @param spans filled with the span of each interval
+     * @return query results in the order of intervals
+     */
+    default FastList<DoubleList> queryBatch(
+            StoryBoard<T> board,
+            List<T> xToTrack,
+            List<IntList> intervals,
+            double[] totals,
+            int[] spans
+    ) {
+        int nIntervals = intervals.size();
+        FastList<DoubleList> results = new FastList<>(nIntervals);
+        for (int k = 0; k < nIntervals; k++) {
+            IntList curInterval = intervals.get(k);
+            setRange(curInterval.get(0), curInterval.get(1));
+            results.add(query(board, xToTrack));
+            totals[k] = total();
+            spans[k] = span();
+        }
+        return results;
+    }
 }
@@ -0,0 +1,169 @@
+package board.query;
+
+import board.PrefixIndex;
+import board.StoryBoard;
+import org.eclipse.collections.api.PrimitiveIterable;
+import org.eclipse.collections.api.list.primitive.DoubleList;
+import org.eclipse.collections.api.list.primitive.LongList;
+import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
+import summary.DoubleSketch;
+import summary.LongSketch;
+import summary.Sketch;
+import summary.accumulator.Accumulator;
+
+import java.util.List;
+
+/**
+ * Answers [startIdx, endIdx) as the difference of the two enclosed prefix
+ * checkpoints plus the residual segments on either side, on sorted boards.
+ * Only exact for accumulators whose estimates are sums over the added sketches.
+ */
+public class PrefixLinearAccProcessor<T, TL extends PrimitiveIterable> implements
+        LinearQueryProcessor<T> {
+    public int startIdx=0, endIdx=0;
+    public Accumulator<T, TL> acc;
+    public PrefixIndex<T> index;
+    int[] rowScratch = new int[0];
+    int loCheckpoint, hiCheckpoint;
+    public int span;
+    public double total;
+
+    public PrefixLinearAccProcessor(
+            Accumulator<T, TL> acc,
+            PrefixIndex<T> index
+    ) {
+        this.acc = acc;
+        this.index = index;
+        this.span = 0;
+        this.total = 0;
+    }
+
+    @Override
+    public DoubleList query(
+            StoryBoard<T> board,
+            List<T> xToTrack
+    ) {
+        double[] out = new double[xToTrack.size()];
+        query(board, xToTrack, out);
+        return DoubleArrayList.newListWith(out);
+    }
+
+    @Override
+    public void query(StoryBoard<T> board, List<T> xToTrack, double[] out) {
+        boolean useCheckpoints = accumulate(board);
+        acc.estimate(xToTrack, out);
+        if (!useCheckpoints) {
+            return;
+        }
+        Sketch<T> loSketch = index.checkpoints.get(loCheckpoint);
+        Sketch<T> hiSketch = index.checkpoints.get(hiCheckpoint);
+        for (int i = 0; i < xToTrack.size(); i++) {
+            T x = xToTrack.get(i);
+            out[i] = out[i] + hiSketch.estimate(x) - loSketch.estimate(x);
+        }
+    }
+
+    /**
+     * Probes LongSketch and DoubleSketch checkpoints with unboxed items.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public void query(StoryBoard<T> board, PrimitiveIterable xToTrack, double[] out) {
+        boolean useCheckpoints = accumulate(board);
+        acc.estimate((TL) xToTrack, out);
+        if (!useCheckpoints) {
+            return;
+        }
+        Sketch<T> loSketch = index.checkpoints.get(loCheckpoint);
+        Sketch<T> hiSketch = index.checkpoints.get(hiCheckpoint);
+        int n = xToTrack.size();
+        if (xToTrack instanceof LongList && loSketch instanceof LongSketch && hiSketch instanceof LongSketch) {
+            LongList xs = (LongList) xToTrack;
+            LongSketch lo = (LongSketch) loSketch;
+            LongSketch hi = (LongSketch) hiSketch;
+            for (int i = 0; i < n; i++) {
+                long x = xs.get(i);
+                out[i] = out[i] + hi.estimate(x) - lo.estimate(x);
+            }
+        } else if (xToTrack instanceof DoubleList && loSketch instanceof DoubleSketch && hiSketch instanceof DoubleSketch) {
+            DoubleList xs = (DoubleList) xToTrack;
+            DoubleSketch lo = (DoubleSketch) loSketch;
+            DoubleSketch hi = (DoubleSketch) hiSketch;
+            for (int i = 0; i < n; i++) {
+                double x = xs.get(i);
+                out[i] = out[i] + hi.estimate(x) - lo.estimate(x);
+            }
+        } else {
+            List<T> boxed = Accumulator.box(xToTrack);
+            for (int i = 0; i < n; i++) {
+                T x = boxed.get(i);
+                out[i] = out[i] + hiSketch.estimate(x) - loSketch.estimate(x);
+            }
+        }
+    }
+
+    /**
+     * Adds the residual rows to acc and picks the enclosed checkpoints.
+     * @return whether the checkpoint difference must be added to the estimates
+     */
+    private boolean accumulate(StoryBoard<T> board) {
+        acc.reset();
+        span = 0;
+        total = 0;
+        int stride = index.stride;
+        loCheckpoint = Math.min((startIdx + stride - 1) / stride, index.numCheckpoints() - 1);
+        hiCheckpoint = Math.min(endIdx / stride, index.numCheckpoints() - 1);
+        if (loCheckpoint >= hiCheckpoint) {
+            addRows(board, startIdx, endIdx, 0, 0);
+            return false;
+        }
+
+        addRows(board, startIdx, loCheckpoint * stride, hiCheckpoint * stride, endIdx);
+        DoubleArrayList checkpointTotals = index.board.totalCol;
+        total += checkpointTotals.get(hiCheckpoint) - checkpointTotals.get(loCheckpoint);
+        span += 2;
+        return true;
+    }
+
+    /**
+     * Adds the rows of [fromIdx, toIdx) and [fromIdx2, toIdx2) in one batch.
+     */
+    private void addRows(StoryBoard<T> board, int fromIdx, int toIdx, int fromIdx2, int toIdx2) {
+        int start1 = board.lowerBound(fromIdx);
+        int end1 = Math.max(start1, board.lowerBound(toIdx));
+        int start2 = board.lowerBound(fromIdx2);
+        int end2 = Math.max(start2, board.lowerBound(toIdx2));
+        int count = (end1 - start1) + (end2 - start2);
+        if (rowScratch.length < count) {
+            rowScratch = new int[count];
+        }
+        int k = 0;
+        for (int i = start1; i < end1; i++) {
+            rowScratch[k++] = i;
+        }
+        for (int i = start2; i < end2; i++) {
+            rowScratch[k++] = i;
+        }
+        for (int j = 0; j < count; j++) {
+            total += board.totalCol.get(rowScratch[j]);
+        }
+        span += count;
+        acc.addSketches(board, rowScratch, count);
+    }
+
+    @Override
+    public double total() {
+        return total;
+    }
+
+    @Override
+    public int span() {
+        return span;
+    }
+
+    @Override
+    public void setRange(int startIdx, int endIdx) {
+        this.startIdx = startIdx;
+        this.endIdx = endIdx;
+    }
+}
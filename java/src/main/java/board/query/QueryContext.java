@@ -0,0 +1,24 @@
+package board.query;
+
+import org.eclipse.collections.api.list.primitive.DoubleList;
+
+/**
+ * Result and error buffers reused across the queries of a run, so the
+ * steady-state query loop does not allocate.
+ */
+public class QueryContext {
+    public double[] results;
+    public double[] errors;
+
+    public QueryContext(int numResults) {
+        results = new double[numResults];
+        errors = new double[ErrorMetric.ERROR_NAMES.length];
+    }
+
+    /**
+     * Fills errors with the error of results against trueValues.
+     */
+    public void calcErrors(DoubleList trueValues) {
+        ErrorMetric.calcErrors(trueValues, results, errors);
+    }
+}
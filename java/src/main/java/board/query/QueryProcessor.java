@@ -1,13 +1,31 @@
 package board.query;
 
 import board.StoryBoard;
+import org.eclipse.collections.api.PrimitiveIterable;
 import org.eclipse.collections.api.list.primitive.DoubleList;
-import org.eclipse.collections.impl.list.mutable.FastList;
+import summary.accumulator.Accumulator;
 
 import java.util.List;
 
 public interface QueryProcessor<T> {
     DoubleList query(StoryBoard<T> board, List<T> xToTrack);
+
+    /**
+     * Writes the results into out[0, xToTrack.size()) instead of a new list.
+     */
+    default void query(StoryBoard<T> board, List<T> xToTrack, double[] out) {
+        DoubleList results = query(board, xToTrack);
+        for (int i = 0; i < results.size(); i++) {
+            out[i] = results.get(i);
+        }
+    }
+
+    /**
+     * Primitive variant for a LongList or DoubleList of items, boxing them unless overridden.
+     */
+    default void query(StoryBoard<T> board, PrimitiveIterable xToTrack, double[] out) {
+        query(board, Accumulator.<T>box(xToTrack), out);
+    }
     double total();
     int span();
 }
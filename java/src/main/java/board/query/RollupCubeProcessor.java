@@ -0,0 +1,68 @@
+package board.query;
+
+import board.CubeRollup;
+import board.StoryBoard;
+import org.eclipse.collections.api.PrimitiveIterable;
+import org.eclipse.collections.api.list.primitive.DoubleList;
+import org.eclipse.collections.api.list.primitive.LongList;
+
+import java.util.List;
+
+/**
+ * Runs each query against the smallest rollup that keeps all of its
+ * filtered dimensions, falling back to the full board.
+ */
+public class RollupCubeProcessor<T> implements CubeQueryProcessor<T> {
+    public CubeQueryProcessor<T> processor;
+    public List<CubeRollup<T>> rollups;
+    public LongList dimensionFilters;
+
+    public RollupCubeProcessor(
+            CubeQueryProcessor<T> processor,
+            List<CubeRollup<T>> rollups
+    ) {
+        this.processor = processor;
+        this.rollups = rollups;
+    }
+
+    public StoryBoard<T> chooseBoard(StoryBoard<T> board) {
+        StoryBoard<T> bestBoard = board;
+        for (CubeRollup<T> rollup : rollups) {
+            if (rollup.covers(dimensionFilters) && rollup.board.numRows() < bestBoard.numRows()) {
+                bestBoard = rollup.board;
+            }
+        }
+        return bestBoard;
+    }
+
+    @Override
+    public DoubleList query(StoryBoard<T> board, List<T> xToTrack) {
+        return processor.query(chooseBoard(board), xToTrack);
+    }
+
+    @Override
+    public void query(StoryBoard<T> board, List<T> xToTrack, double[] out) {
+        processor.query(chooseBoard(board), xToTrack, out);
+    }
+
+    @Override
+    public void query(StoryBoard<T> board, PrimitiveIterable xToTrack, double[] out) {
+        processor.query(chooseBoard(board), xToTrack, out);
+    }
+
+    @Override
+    public double total() {
+        return processor.total();
+    }
+
+    @Override
+    public int span() {
+        return processor.span();
+    }
+
+    @Override
+    public void setDimensions(LongList dims) {
+        dimensionFilters = dims;
+        processor.setDimensions(dims);
+    }
+}
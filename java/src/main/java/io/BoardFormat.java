@@ -0,0 +1,481 @@
+package io;
+
+import board.StoryBoard;
+import org.eclipse.collections.impl.list.mutable.FastList;
+import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import summary.CounterDoubleSketch;
+import summary.CounterLongSketch;
+import summary.PackedCounters;
+import summary.Sketch;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Versioned columnar on-disk layout for a StoryBoard.
+ *
+ * All values are little endian. The file is laid out as:
+ * header | dimension columns (long) | tierCol (int, padded to 8 bytes) |
+ * totalCol (double) | row offsets (long, nRows+1) | packed values | packed weights
+ *
+ * Counter sketches store their values and weights in the packed region, and
+ * row i occupies [offsets[i], offsets[i+1]). Any other sketch type is stored as
+ * one java-serialized blob per row, with the offsets indexing into a byte region.
+ * Counter boards are read straight into a PackedCounters column.
+ */
+public class BoardFormat {
+    public static final int MAGIC = 0x44424B53;
+    public static final int VERSION = 1;
+    public static final int HEADER_BYTES = 32;
+
+    public static final int FLAG_SORTED = 1;
+    public static final int FLAG_SORTED_VALUES = 2;
+
+    public static final int TYPE_COUNTER_LONG = 0;
+    public static final int TYPE_COUNTER_DOUBLE = 1;
+    public static final int TYPE_SERIALIZED = 2;
+
+    static final int BUFFER_BYTES = 1 << 16;
+
+    public static class Header {
+        public int version;
+        public int flags;
+        public int sketchType;
+        public int nDims;
+        public int nRows;
+        public long nItems;
+
+        public long dimsStart() {
+            return HEADER_BYTES;
+        }
+        public long tierStart() {
+            return dimsStart() + 8L * nDims * nRows;
+        }
+        public long totalStart() {
+            return tierStart() + 8L * ((nRows + 1) / 2);
+        }
+        public long offsetsStart() {
+            return totalStart() + 8L * nRows;
+        }
+        public long valuesStart() {
+            return offsetsStart() + 8L * (nRows + 1);
+        }
+        public long weightsStart() {
+            return valuesStart() + 8L * nItems;
+        }
+        public long fileBytes() {
+            if (sketchType == TYPE_SERIALIZED) {
+                return valuesStart() + nItems;
+            } else {
+                return weightsStart() + 8L * nItems;
+            }
+        }
+
+        public static Header read(ByteBuffer buf) throws IOException {
+            buf.order(ByteOrder.LITTLE_ENDIAN);
+            if (buf.getInt() != MAGIC) {
+                throw new IOException("Not a columnar board file");
+            }
+            Header h = new Header();
+            h.version = buf.getInt();
+            if (h.version > VERSION) {
+                throw new IOException("Unsupported board file version: "+h.version);
+            }
+            h.flags = buf.getInt();
+            h.sketchType = buf.getInt();
+            h.nDims = buf.getInt();
+            h.nRows = buf.getInt();
+            h.nItems = buf.getLong();
+            return h;
+        }
+    }
+
+    public static boolean isBoardFile(File f) throws IOException {
+        try (DataInputStream in = new DataInputStream(new FileInputStream(f))) {
+            return Integer.reverseBytes(in.readInt()) == MAGIC;
+        } catch (EOFException e) {
+            return false;
+        }
+    }
+
+    public static int getSketchType(StoryBoard<?> board) {
+        if (board.packedCol != null) {
+            return board.packedCol.isLong() ? TYPE_COUNTER_LONG : TYPE_COUNTER_DOUBLE;
+        }
+        int nRows = board.numRows();
+        boolean allLong = true;
+        boolean allDouble = true;
+        for (int i = 0; i < nRows; i++) {
+            Sketch<?> curSketch = board.getSketch(i);
+            allLong &= curSketch instanceof CounterLongSketch;
+            allDouble &= curSketch instanceof CounterDoubleSketch;
+        }
+        if (allLong) {
+            return TYPE_COUNTER_LONG;
+        } else if (allDouble) {
+            return TYPE_COUNTER_DOUBLE;
+        } else {
+            return TYPE_SERIALIZED;
+        }
+    }
+
+    /**
+     * @return whether every row is a counter long sketch with ascending values
+     */
+    public static boolean hasSortedValues(StoryBoard<?> board) {
+        if (board.packedCol != null) {
+            return board.packedCol.sortedValues;
+        }
+        int nRows = board.numRows();
+        for (int i = 0; i < nRows; i++) {
+            Sketch<?> curSketch = board.getSketch(i);
+            if (!(curSketch instanceof CounterLongSketch) || !((CounterLongSketch) curSketch).sorted) {
+                return false;
+            }
+        }
+        return nRows > 0;
+    }
+
+    public static <T> void write(StoryBoard<T> board, File f) throws IOException {
+        int nRows = board.numRows();
+        int nDims = board.dimensionCols.size();
+        int sketchType = getSketchType(board);
+
+        PackedCounters packedCol = board.packedCol;
+        byte[][] blobs = null;
+        long[] offsets = new long[nRows + 1];
+        for (int i = 0; i < nRows; i++) {
+            if (packedCol != null) {
+                offsets[i+1] = packedCol.offsets[i+1];
+            } else {
+                offsets[i+1] = offsets[i] + board.getSketch(i).size();
+            }
+        }
+        if (sketchType == TYPE_SERIALIZED) {
+            blobs = new byte[nRows][];
+            for (int i = 0; i < nRows; i++) {
+                ByteArrayOutputStream bOut = new ByteArrayOutputStream();
+                ObjectOutputStream oOut = new ObjectOutputStream(bOut);
+                oOut.writeObject(board.getSketch(i));
+                oOut.close();
+                blobs[i] = bOut.toByteArray();
+                offsets[i+1] = offsets[i] + blobs[i].length;
+            }
+        }
+
+        try (FileChannel ch = FileChannel.open(
+                f.toPath(),
+                StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            ChannelWriter w = new ChannelWriter(ch);
+            w.putInt(MAGIC);
+            w.putInt(VERSION);
+            int flags = board.sorted ? FLAG_SORTED : 0;
+            if (sketchType == TYPE_COUNTER_LONG && hasSortedValues(board)) {
+                flags |= FLAG_SORTED_VALUES;
+            }
+            w.putInt(flags);
+            w.putInt(sketchType);
+            w.putInt(nDims);
+            w.putInt(nRows);
+            w.putLong(offsets[nRows]);
+
+            for (int j = 0; j < nDims; j++) {
+                LongArrayList curDimCol = board.dimensionCols.get(j);
+                for (int i = 0; i < nRows; i++) {
+                    w.putLong(curDimCol.get(i));
+                }
+            }
+            IntArrayList tierCol = board.tierCol;
+            for (int i = 0; i < nRows; i++) {
+                w.putInt(tierCol.get(i));
+            }
+            if (nRows % 2 == 1) {
+                w.putInt(0);
+            }
+            DoubleArrayList totalCol = board.totalCol;
+            for (int i = 0; i < nRows; i++) {
+                w.putDouble(totalCol.get(i));
+            }
+            w.putLongs(offsets, 0, nRows + 1);
+
+            if (packedCol != null) {
+                int nItems = packedCol.numItems();
+                if (packedCol.isLong()) {
+                    w.putLongs(packedCol.longValues, 0, nItems);
+                } else {
+                    w.putDoubles(packedCol.doubleValues, 0, nItems);
+                }
+                w.putDoubles(packedCol.weights, 0, nItems);
+            } else if (sketchType == TYPE_COUNTER_LONG) {
+                for (int i = 0; i < nRows; i++) {
+                    long[] values = ((CounterLongSketch) board.getSketch(i)).values;
+                    w.putLongs(values, 0, values.length);
+                }
+                for (int i = 0; i < nRows; i++) {
+                    double[] weights = ((CounterLongSketch) board.getSketch(i)).weights;
+                    w.putDoubles(weights, 0, weights.length);
+                }
+            } else if (sketchType == TYPE_COUNTER_DOUBLE) {
+                for (int i = 0; i < nRows; i++) {
+                    double[] values = ((CounterDoubleSketch) board.getSketch(i)).values;
+                    w.putDoubles(values, 0, values.length);
+                }
+                for (int i = 0; i < nRows; i++) {
+                    double[] weights = ((CounterDoubleSketch) board.getSketch(i)).weights;
+                    w.putDoubles(weights, 0, weights.length);
+                }
+            } else {
+                for (int i = 0; i < nRows; i++) {
+                    w.putBytes(blobs[i]);
+                }
+            }
+            w.flush();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <T> StoryBoard<T> read(File f) throws IOException, ClassNotFoundException {
+        try (FileChannel ch = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            ChannelReader r = new ChannelReader(ch);
+            Header h = Header.read(r.take(HEADER_BYTES));
+            int nRows = h.nRows;
+            int nDims = h.nDims;
+
+            StoryBoard<T> board = new StoryBoard<>(nDims);
+            board.sorted = (h.flags & FLAG_SORTED) != 0;
+            boolean sortedValues = (h.flags & FLAG_SORTED_VALUES) != 0;
+            for (int j = 0; j < nDims; j++) {
+                long[] dimValues = new long[nRows];
+                r.getLongs(dimValues, 0, nRows);
+                board.dimensionCols.set(j, LongArrayList.newListWith(dimValues));
+            }
+            int[] tiers = new int[nRows];
+            r.getInts(tiers, 0, nRows);
+            if (nRows % 2 == 1) {
+                r.take(4);
+            }
+            board.tierCol = IntArrayList.newListWith(tiers);
+            double[] totals = new double[nRows];
+            r.getDoubles(totals, 0, nRows);
+            board.totalCol = DoubleArrayList.newListWith(totals);
+            long[] offsets = new long[nRows + 1];
+            r.getLongs(offsets, 0, nRows + 1);
+
+            boolean isCounter = h.sketchType == TYPE_COUNTER_LONG || h.sketchType == TYPE_COUNTER_DOUBLE;
+            if (isCounter && nRows > 0 && h.nItems <= Integer.MAX_VALUE) {
+                int nItems = (int) h.nItems;
+                int[] packedOffsets = new int[nRows + 1];
+                for (int i = 0; i <= nRows; i++) {
+                    packedOffsets[i] = (int) offsets[i];
+                }
+                long[] longValues = null;
+                double[] doubleValues = null;
+                if (h.sketchType == TYPE_COUNTER_LONG) {
+                    longValues = new long[nItems];
+                    r.getLongs(longValues, 0, nItems);
+                } else {
+                    doubleValues = new double[nItems];
+                    r.getDoubles(doubleValues, 0, nItems);
+                }
+                double[] weights = new double[nItems];
+                r.getDoubles(weights, 0, nItems);
+                board.packedCol = new PackedCounters(longValues, doubleValues, weights, packedOffsets);
+                board.packedCol.sortedValues = sortedValues;
+                board.sketchCol = null;
+                return board;
+            }
+
+            FastList<Sketch<T>> sketchCol = new FastList<>(nRows);
+            if (h.sketchType == TYPE_COUNTER_LONG) {
+                long[][] values = new long[nRows][];
+                for (int i = 0; i < nRows; i++) {
+                    values[i] = new long[(int) (offsets[i+1] - offsets[i])];
+                    r.getLongs(values[i], 0, values[i].length);
+                }
+                for (int i = 0; i < nRows; i++) {
+                    double[] weights = new double[values[i].length];
+                    r.getDoubles(weights, 0, weights.length);
+                    sketchCol.add((Sketch<T>) new CounterLongSketch(values[i], weights, sortedValues));
+                }
+            } else if (h.sketchType == TYPE_COUNTER_DOUBLE) {
+                double[][] values = new double[nRows][];
+                for (int i = 0; i < nRows; i++) {
+                    values[i] = new double[(int) (offsets[i+1] - offsets[i])];
+                    r.getDoubles(values[i], 0, values[i].length);
+                }
+                for (int i = 0; i < nRows; i++) {
+                    double[] weights = new double[values[i].length];
+                    r.getDoubles(weights, 0, weights.length);
+                    sketchCol.add((Sketch<T>) new CounterDoubleSketch(values[i], weights));
+                }
+            } else {
+                for (int i = 0; i < nRows; i++) {
+                    byte[] blob = new byte[(int) (offsets[i+1] - offsets[i])];
+                    r.getBytes(blob);
+                    ObjectInputStream oIn = new ObjectInputStream(new ByteArrayInputStream(blob));
+                    sketchCol.add((Sketch<T>) oIn.readObject());
+                }
+            }
+            board.sketchCol = sketchCol;
+            return board;
+        }
+    }
+
+    static class ChannelWriter {
+        FileChannel ch;
+        ByteBuffer buf;
+
+        ChannelWriter(FileChannel ch) {
+            this.ch = ch;
+            this.buf = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        void ensure(int nBytes) throws IOException {
+            if (buf.remaining() < nBytes) {
+                flush();
+            }
+        }
+
+        void flush() throws IOException {
+            buf.flip();
+            while (buf.hasRemaining()) {
+                ch.write(buf);
+            }
+            buf.clear();
+        }
+
+        void putInt(int x) throws IOException {
+            ensure(4);
+            buf.putInt(x);
+        }
+
+        void putLong(long x) throws IOException {
+            ensure(8);
+            buf.putLong(x);
+        }
+
+        void putDouble(double x) throws IOException {
+            ensure(8);
+            buf.putDouble(x);
+        }
+
+        void putLongs(long[] xs, int start, int n) throws IOException {
+            while (n > 0) {
+                ensure(8);
+                int chunk = Math.min(n, buf.remaining() / 8);
+                buf.asLongBuffer().put(xs, start, chunk);
+                buf.position(buf.position() + 8 * chunk);
+                start += chunk;
+                n -= chunk;
+            }
+        }
+
+        void putDoubles(double[] xs, int start, int n) throws IOException {
+            while (n > 0) {
+                ensure(8);
+                int chunk = Math.min(n, buf.remaining() / 8);
+                buf.asDoubleBuffer().put(xs, start, chunk);
+                buf.position(buf.position() + 8 * chunk);
+                start += chunk;
+                n -= chunk;
+            }
+        }
+
+        void putBytes(byte[] xs) throws IOException {
+            int start = 0;
+            int n = xs.length;
+            while (n > 0) {
+                ensure(1);
+                int chunk = Math.min(n, buf.remaining());
+                buf.put(xs, start, chunk);
+                start += chunk;
+                n -= chunk;
+            }
+        }
+    }
+
+    static class ChannelReader {
+        FileChannel ch;
+        ByteBuffer buf;
+
+        ChannelReader(FileChannel ch) {
+            this.ch = ch;
+            this.buf = ByteBuffer.allocateDirect(BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            buf.flip();
+        }
+
+        void fill(int nBytes) throws IOException {
+            if (buf.remaining() >= nBytes) {
+                return;
+            }
+            buf.compact();
+            while (buf.position() < nBytes) {
+                if (ch.read(buf) < 0) {
+                    throw new EOFException("Truncated board file");
+                }
+            }
+            buf.flip();
+        }
+
+        ByteBuffer take(int nBytes) throws IOException {
+            fill(nBytes);
+            ByteBuffer out = buf.slice().order(ByteOrder.LITTLE_ENDIAN);
+            out.limit(nBytes);
+            buf.position(buf.position() + nBytes);
+            return out;
+        }
+
+        void getInts(int[] xs, int start, int n) throws IOException {
+            while (n > 0) {
+                fill(4);
+                int chunk = Math.min(n, buf.remaining() / 4);
+                buf.asIntBuffer().get(xs, start, chunk);
+                buf.position(buf.position() + 4 * chunk);
+                start += chunk;
+                n -= chunk;
+            }
+        }
+
+        void getLongs(long[] xs, int start, int n) throws IOException {
+            while (n > 0) {
+                fill(8);
+                int chunk = Math.min(n, buf.remaining() / 8);
+                buf.asLongBuffer().get(xs, start, chunk);
+                buf.position(buf.position() + 8 * chunk);
+                start += chunk;
+                n -= chunk;
+            }
+        }
+
+        void getDoubles(double[] xs, int start, int n) throws IOException {
+            while (n > 0) {
+                fill(8);
+                int chunk = Math.min(n, buf.remaining() / 8);
+                buf.asDoubleBuffer().get(xs, start, chunk);
+                buf.position(buf.position() + 8 * chunk);
+                start += chunk;
+                n -= chunk;
+            }
+        }
+
+        void getBytes(byte[] xs) throws IOException {
+            int start = 0;
+            int n = xs.length;
+            while (n > 0) {
+                fill(1);
+                int chunk = Math.min(n, buf.remaining());
+                buf.get(xs, start, chunk);
+                start += chunk;
+                n -= chunk;
+            }
+        }
+    }
+}
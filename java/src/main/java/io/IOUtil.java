@@ -1,6 +1,8 @@
 package io;
 
+import board.MappedStoryBoard;
 import board.StoryBoard;
+import org.eclipse.collections.api.list.primitive.IntList;
 import tech.tablesaw.api.ColumnType;
 import tech.tablesaw.api.Table;
 import tech.tablesaw.io.csv.CsvReadOptions;
@@ -24,6 +26,49 @@ public class IOUtil {
         );
     }
 
+    public static String getDyadicIndexName(
+            String sketch,
+            int size,
+            int granularity
+    ) {
+        return String.format(
+                "board-%s-%d-%d-dyadic.out",
+                sketch,
+                size,
+                granularity
+        );
+    }
+
+    public static String getPrefixIndexName(
+            String sketch,
+            int size,
+            int granularity,
+            int stride
+    ) {
+        return String.format(
+                "board-%s-%d-%d-prefix%d.out",
+                sketch,
+                size,
+                granularity,
+                stride
+        );
+    }
+
+    public static String getRollupName(
+            String sketch,
+            int size,
+            int granularity,
+            IntList dims
+    ) {
+        return String.format(
+                "board-%s-%d-%d-rollup%s.out",
+                sketch,
+                size,
+                granularity,
+                dims.isEmpty() ? "-all" : dims.makeString("-", "-", "")
+        );
+    }
+
     public static Serializable testSerDe(Serializable o) throws IOException, ClassNotFoundException {
         File tempFile = File.createTempFile("board_serialize", "temp");
         tempFile.deleteOnExit();
@@ -38,6 +83,10 @@ public class IOUtil {
 
 
     public static <T> void writeBoard(StoryBoard<T> board, File f) throws IOException {
+        BoardFormat.write(board, f);
+    }
+
+    public static <T> void writeBoardSerialized(StoryBoard<T> board, File f) throws IOException {
         FileOutputStream fOut = new FileOutputStream(f);
         ObjectOutputStream oOut = new ObjectOutputStream(fOut);
         oOut.writeObject(board);
@@ -45,12 +94,23 @@ public class IOUtil {
     }
 
     public static <T> StoryBoard<T> loadBoard(File f) throws IOException, ClassNotFoundException {
+        if (BoardFormat.isBoardFile(f)) {
+            return BoardFormat.read(f);
+        }
         FileInputStream fIn = new FileInputStream(f);
         ObjectInputStream oIn = new ObjectInputStream(fIn);
         StoryBoard<T> boardIn = (StoryBoard<T>)oIn.readObject();
+        boardIn.pack();
         return boardIn;
     }
 
+    public static <T> StoryBoard<T> mapBoard(File f) throws IOException, ClassNotFoundException {
+        if (BoardFormat.isBoardFile(f)) {
+            return new MappedStoryBoard<>(f);
+        }
+        return loadBoard(f);
+    }
+
     public static Table loadTable(String path, List<Integer> colTypes) throws IOException {
         int d = colTypes.size();
         ColumnType[] columnTypes = new ColumnType[d];
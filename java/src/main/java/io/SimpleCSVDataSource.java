@@ -1,11 +1,13 @@
 package io;
 
+import org.eclipse.collections.api.PrimitiveIterable;
 import org.eclipse.collections.impl.list.mutable.FastList;
 
 import java.io.BufferedReader;
 import java.io.FileReader;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.function.Consumer;
 
 public abstract class SimpleCSVDataSource<T> {
     public int limit = Integer.MAX_VALUE;
@@ -21,12 +23,22 @@ public abstract class SimpleCSVDataSource<T> {
 
     public abstract T parseString(String strVal);
 
+    /**
+     * @return the column as a LongList or DoubleList, without boxing
+     */
+    public abstract PrimitiveIterable getPrimitive(String fileName, int column) throws IOException;
+
     public FastList<T> get(String fileName, int column) throws IOException {
+        FastList<T> vals = new FastList<>();
+        forEachValue(fileName, column, (String strVal) -> vals.add(parseString(strVal)));
+        return vals;
+    }
+
+    protected void forEachValue(String fileName, int column, Consumer<String> f) throws IOException {
         BufferedReader bf = new BufferedReader(new FileReader(fileName));
         if (hasHeader) {
             bf.readLine();
         }
-        FastList<T> vals = new FastList<>();
         for (int i = 0; i < limit; i++) {
             String curLine = bf.readLine();
             if (curLine == null) {
@@ -44,8 +56,7 @@ public abstract class SimpleCSVDataSource<T> {
                     break;
                 }
             }
-            vals.add(parseString(curLine.substring(startIdx, nextIdx)));
+            f.accept(curLine.substring(startIdx, nextIdx));
         }
-        return vals;
     }
 }
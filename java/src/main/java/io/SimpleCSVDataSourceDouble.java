@@ -1,8 +1,19 @@
 package io;
 
+import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
+
+import java.io.IOException;
+
 public class SimpleCSVDataSourceDouble extends SimpleCSVDataSource<Double> {
     @Override
     public Double parseString(String strVal) {
         return Double.parseDouble(strVal);
     }
+
+    @Override
+    public DoubleArrayList getPrimitive(String fileName, int column) throws IOException {
+        DoubleArrayList vals = new DoubleArrayList();
+        forEachValue(fileName, column, (String strVal) -> vals.add(Double.parseDouble(strVal)));
+        return vals;
+    }
 }
@@ -1,8 +1,19 @@
 package io;
 
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+
+import java.io.IOException;
+
 public class SimpleCSVDataSourceLong extends SimpleCSVDataSource<Long> {
     @Override
     public Long parseString(String strVal) {
         return Long.parseLong(strVal);
     }
+
+    @Override
+    public LongArrayList getPrimitive(String fileName, int column) throws IOException {
+        LongArrayList vals = new LongArrayList();
+        forEachValue(fileName, column, (String strVal) -> vals.add(Long.parseLong(strVal)));
+        return vals;
+    }
 }
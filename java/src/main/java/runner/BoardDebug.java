@@ -33,7 +33,7 @@ public class BoardDebug {
         StoryBoard<Long> board = IOUtil.loadBoard(fIn);
 
         int nCols = board.dimensionCols.size();
-        int nRows = board.dimensionCols.get(0).size();
+        int nRows = board.numRows();
         int[] match = {0, 0, 0, 0};
 //        int[] match = {1, 5, 9, 2};
 
@@ -46,7 +46,7 @@ public class BoardDebug {
                 }
             }
             if (matches) {
-                Sketch<Long> sketchObj =board.sketchCol.get(i);
+                Sketch<Long> sketchObj =board.getSketch(i);
                 System.out.println("Size: "+sketchObj.size());
             }
         }
@@ -1,15 +1,20 @@
 package runner;
 
 import board.BoardGen;
+import board.CubeRollup;
+import board.DyadicIndex;
+import board.PrefixIndex;
 import board.StoryBoard;
 import board.planner.*;
 import io.*;
+import org.apache.commons.math3.util.FastMath;
 import org.eclipse.collections.api.PrimitiveIterable;
 import org.eclipse.collections.api.factory.Lists;
 import org.eclipse.collections.api.list.primitive.DoubleList;
 import org.eclipse.collections.api.list.primitive.IntList;
 import org.eclipse.collections.api.list.primitive.LongList;
 import org.eclipse.collections.impl.list.mutable.FastList;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
 import runner.factory.QuantileSketchGenFactory;
 import summary.gen.SketchGen;
 import runner.factory.FreqSketchGenFactory;
@@ -23,6 +28,7 @@ import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 public class LoadRunner<T, TL extends PrimitiveIterable> {
     RunConfig config;
@@ -43,6 +49,13 @@ public class LoadRunner<T, TL extends PrimitiveIterable> {
     boolean isCube;
     List<String> dimensionCols;
     double workloadProb;
+    List<List<Integer>> rollups;
+    int rollupSize;
+    boolean dyadicIndex;
+    int dyadicIndexSize;
+    int prefixStride;
+    int loadThreads;
+    ForkJoinPool loadPool;
 
     public LoadRunner(RunConfig config) {
         this.config = config;
@@ -64,6 +77,15 @@ public class LoadRunner<T, TL extends PrimitiveIterable> {
         dimensionCols = config.get("dimension_cols", Lists.mutable.empty());
         workloadProb = config.get("workload_prob", -1.0);
         isCube = !dimensionCols.isEmpty();
+        rollups = config.get("rollups", Lists.mutable.empty());
+        rollupSize = config.get("rollup_size", 0);
+        dyadicIndex = config.get("dyadic_index", false);
+        dyadicIndexSize = config.get("dyadic_index_size", 0);
+        prefixStride = config.get("prefix_stride", 0);
+        loadThreads = config.get("load_threads", 1);
+        if (loadThreads > 1) {
+            loadPool = new ForkJoinPool(loadThreads);
+        }
     }
 
     public Map<String, Object> getPlannerParams() {
@@ -112,6 +134,9 @@ public class LoadRunner<T, TL extends PrimitiveIterable> {
                     granularity
             );
             BoardGen<T, TL> bGen = new BoardGen<>(sGen);
+            if (loadPool != null) {
+                bGen.setPool(loadPool);
+            }
 
             for (int curSize : sizes) {
                 System.out.println("Size: "+curSize);
@@ -172,11 +197,83 @@ public class LoadRunner<T, TL extends PrimitiveIterable> {
                 File outFile = new File(outputPath);
                 IOUtil.writeBoard(board, outFile);
 
+                Timer rollupTime = new Timer();
+                for (List<Integer> curRollupDims : rollups) {
+                    IntArrayList dims = new IntArrayList();
+                    curRollupDims.forEach(dims::add);
+                    rollupTime.start();
+                    CubeRollup<T> rollup = CubeRollup.build(
+                            board,
+                            dims,
+                            sketchGenFactory.getAccumulator(curSketch),
+                            rollupSize
+                    );
+                    rollupTime.end();
+                    String rollupPath = String.format("%s/%s",
+                            boardDir.toString(),
+                            IOUtil.getRollupName(
+                                    curSketch,
+                                    curSize,
+                                    granularity,
+                                    dims
+                            ));
+                    IOUtil.writeBoard(rollup.board, new File(rollupPath));
+                }
+
+                Timer indexTime = new Timer();
+                if (
+                        dyadicIndex && !isCube
+                        && !curSketch.equals("dyadic_truncation")
+                        && PrefixIndex.supports(sketchGenFactory.getAccumulator(curSketch))
+                ) {
+                    indexTime.start();
+                    StoryBoard<T> indexBoard = DyadicIndex.build(
+                            board,
+                            sketchGenFactory.getAccumulator(curSketch),
+                            (int) FastMath.log(2.0, granularity),
+                            dyadicIndexSize
+                    );
+                    indexTime.end();
+                    String indexPath = String.format("%s/%s",
+                            boardDir.toString(),
+                            IOUtil.getDyadicIndexName(
+                                    curSketch,
+                                    curSize,
+                                    granularity
+                            ));
+                    IOUtil.writeBoard(indexBoard, new File(indexPath));
+                }
+
+                if (
+                        prefixStride > 0 && !isCube
+                        && !curSketch.equals("dyadic_truncation")
+                        && PrefixIndex.supports(sketchGenFactory.getAccumulator(curSketch))
+                ) {
+                    indexTime.start();
+                    PrefixIndex<T> prefixIndex = PrefixIndex.build(
+                            board,
+                            sketchGenFactory.getAccumulator(curSketch),
+                            prefixStride
+                    );
+                    indexTime.end();
+                    String indexPath = String.format("%s/%s",
+                            boardDir.toString(),
+                            IOUtil.getPrefixIndexName(
+                                    curSketch,
+                                    curSize,
+                                    granularity,
+                                    prefixStride
+                            ));
+                    IOUtil.writeBoard(prefixIndex.board, new File(indexPath));
+                }
+
                 HashMap<String, String> curResults = new HashMap<>();
                 curResults.put("sketch", curSketch);
                 curResults.put("size", Integer.toString(curSize));
                 curResults.put("construct_time", Double.toString(constructTime.getTotalMs()));
                 curResults.put("plan_time", Double.toString(optimizeTimer.getTotalMs()));
+                curResults.put("rollup_time", Double.toString(rollupTime.getTotalMs()));
+                curResults.put("index_time", Double.toString(indexTime.getTotalMs()));
                 plannerParams.forEach((String k, Object v) -> {
                     if (v instanceof Number) {
                         curResults.put(k, v.toString());
@@ -225,7 +322,9 @@ public class LoadRunner<T, TL extends PrimitiveIterable> {
             } else {
                 planner = new LinearFreqPlanner();
             }
-            SketchGenFactory<Long, LongList> sketchGenFactory = new FreqSketchGenFactory();
+            SketchGenFactory<Long, LongList> sketchGenFactory = new FreqSketchGenFactory(
+                    config.get("off_heap", false)
+            );
             loader.runLoad(
                     xTrackSource,
                     planner,
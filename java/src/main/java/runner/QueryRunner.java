@@ -1,9 +1,13 @@
 package runner;
 
+import board.CubeRollup;
+import board.PrefixIndex;
 import board.StoryBoard;
 import board.query.CubeQueryProcessor;
 import board.query.ErrorMetric;
 import board.query.LinearQueryProcessor;
+import board.query.QueryContext;
+import board.query.RollupCubeProcessor;
 import board.workload.CubeWorkload;
 import board.workload.LinearWorkload;
 import io.*;
@@ -14,11 +18,16 @@ import org.eclipse.collections.api.list.primitive.DoubleList;
 import org.eclipse.collections.api.list.primitive.IntList;
 import org.eclipse.collections.api.list.primitive.LongList;
 import org.eclipse.collections.api.map.MutableMap;
+import org.eclipse.collections.api.map.primitive.MutableObjectIntMap;
 import org.eclipse.collections.impl.list.mutable.FastList;
+import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
 import org.eclipse.collections.impl.map.mutable.UnifiedMap;
+import org.eclipse.collections.impl.map.mutable.primitive.ObjectIntHashMap;
 import runner.factory.FreqSketchGenFactory;
 import runner.factory.QuantileSketchGenFactory;
 import runner.factory.SketchGenFactory;
+import summary.accumulator.Accumulator;
 
 import java.io.File;
 import java.nio.file.Files;
@@ -27,6 +36,7 @@ import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 public class QueryRunner<T, TL extends PrimitiveIterable> {
     RunConfig config;
@@ -46,6 +56,13 @@ public class QueryRunner<T, TL extends PrimitiveIterable> {
     List<Double> queryWorkloadProbs;
 
     boolean cacheQueries;
+    boolean mmapBoards;
+    List<List<Integer>> rollups;
+    int queryThreads;
+    boolean batchQueries;
+    boolean dyadicIndex;
+    int prefixStride;
+    ForkJoinPool queryPool;
 
     boolean isCube;
 
@@ -69,19 +86,36 @@ public class QueryRunner<T, TL extends PrimitiveIterable> {
         queryWorkloadProbs = config.get("query_workload_probs", Lists.mutable.<Double>empty());
 
         cacheQueries = config.get("cache_queries", true);
+        mmapBoards = config.get("mmap_boards", false);
+        rollups = config.get("rollups", Lists.mutable.empty());
+        queryThreads = config.get("query_threads", 1);
+        batchQueries = config.get("batch_queries", false);
+        dyadicIndex = config.get("dyadic_index", false);
+        prefixStride = config.get("prefix_stride", 0);
+        if (queryThreads > 1) {
+            queryPool = new ForkJoinPool(queryThreads);
+        }
 
         isCube = (!dimensionCols.isEmpty());
     }
 
+    public StoryBoard<T> loadBoard(File fIn) throws Exception {
+        if (mmapBoards) {
+            return IOUtil.mapBoard(fIn);
+        } else {
+            return IOUtil.loadBoard(fIn);
+        }
+    }
+
     public FastList<Map<String, String>> runLinear(
             SimpleCSVDataSource<T> xTrackSource,
             SketchGenFactory<T, TL> genFactory
     ) throws Exception {
         Path boardDir = Paths.get(outputDir, "boards", experiment);
         xTrackSource.setHasHeader(true);
-        FastList<T> xToTrack = xTrackSource.get(
-                xToTrackPath, 0
-        );
+        // the hot query loop probes with the primitive list, the boxed one serves batch queries
+        PrimitiveIterable xToTrackRaw = xTrackSource.getPrimitive(xToTrackPath, 0);
+        FastList<T> xToTrack = Accumulator.box(xToTrackRaw);
 
         LinearWorkload workloadGen = new LinearWorkload(0);
         FastList<IntList> workloadIntervals = workloadGen.generate(granularity, numQueries);
@@ -104,68 +138,152 @@ public class QueryRunner<T, TL extends PrimitiveIterable> {
                                 curSize,
                                 granularity
                         ));
+                // top_values provides the true results, so it always runs on the raw board
+                boolean useIndex = dyadicIndex
+                        && !curSketch.equals("dyadic_truncation")
+                        && !curSketch.equals("top_values");
+                if (useIndex) {
+                    boardPath = String.format("%s/%s",
+                            boardDir,
+                            IOUtil.getDyadicIndexName(
+                                    curSketch,
+                                    curSize,
+                                    granularity
+                            ));
+                }
                 File fIn = new File(boardPath);
-                StoryBoard<T> board = IOUtil.loadBoard(fIn);
+                StoryBoard<T> board = loadBoard(fIn);
+                PrefixIndex<T> prefixIndex = null;
+                if (
+                        prefixStride > 0 && !useIndex
+                        && !curSketch.equals("dyadic_truncation")
+                        && PrefixIndex.supports(genFactory.getAccumulator(curSketch))
+                ) {
+                    String indexPath = String.format("%s/%s",
+                            boardDir,
+                            IOUtil.getPrefixIndexName(
+                                    curSketch,
+                                    curSize,
+                                    granularity,
+                                    prefixStride
+                            ));
+                    prefixIndex = new PrefixIndex<>(prefixStride, loadBoard(new File(indexPath)));
+                }
 
                 Timer sketchTotalTimer = new Timer();
                 for (int accumulatorSize : accumulatorSizes) {
-                    LinearQueryProcessor<T> p_raw = genFactory.getLinearQueryProcessor(
-                            curSketch,
-                            granularity,
-                            accumulatorSize
-                    );
+                    QueryContext ctx = new QueryContext(xToTrack.size());
+                    LinearQueryProcessor<T> p_raw;
+                    if (useIndex) {
+                        p_raw = genFactory.getDyadicIndexProcessor(
+                                curSketch,
+                                granularity,
+                                accumulatorSize
+                        );
+                    } else if (prefixIndex != null && accumulatorSize == 0) {
+                        p_raw = genFactory.getPrefixIndexProcessor(curSketch, prefixIndex);
+                    } else {
+                        p_raw = genFactory.getLinearQueryProcessor(
+                                curSketch,
+                                granularity,
+                                accumulatorSize,
+                                queryPool
+                        );
+                    }
 
                     // Warm-Up
-                    for (IntList curInterval : workloadIntervals) {
-                        int startIdx = curInterval.get(0);
-                        int endIdx = curInterval.get(1);
-                        p_raw.setRange(startIdx, endIdx);
-                        p_raw.query(board, xToTrack);
+                    if (batchQueries) {
+                        int nWarmup = workloadIntervals.size();
+                        p_raw.queryBatch(
+                                board, xToTrack, workloadIntervals, new double[nWarmup], new int[nWarmup]
+                        );
+                    } else {
+                        for (IntList curInterval : workloadIntervals) {
+                            int startIdx = curInterval.get(0);
+                            int endIdx = curInterval.get(1);
+                            p_raw.setRange(startIdx, endIdx);
+                            p_raw.query(board, xToTrackRaw, ctx.results);
+                        }
                     }
                     System.runFinalization();
                     System.gc();
                     System.out.println("Warmed Up");
 
                     Timer queryTimer = new Timer();
-                    for (IntList curInterval : workloadIntervals) {
-                        int startIdx = curInterval.get(0);
-                        int endIdx = curInterval.get(1);
-
-                        p_raw.setRange(startIdx, endIdx);
+                    int nIntervals = workloadIntervals.size();
+                    double[] batchTotals = new double[nIntervals];
+                    int[] batchSpans = new int[nIntervals];
+                    FastList<DoubleList> batchResults = null;
+                    double batchQueryMs = 0;
+                    if (batchQueries) {
                         sketchTotalTimer.start();
-                        queryTimer.reset();
                         queryTimer.start();
-                        DoubleList queryResults = p_raw.query(board, xToTrack);
+                        batchResults = p_raw.queryBatch(
+                                board, xToTrack, workloadIntervals, batchTotals, batchSpans
+                        );
                         queryTimer.end();
                         sketchTotalTimer.end();
+                        batchQueryMs = queryTimer.getTotalMs() / nIntervals;
+                    }
+                    // per query measurements, turned into result rows once the timed loop is done
+                    double[] queryMs = new double[nIntervals];
+                    double[] trueTotals = new double[nIntervals];
+                    int[] spans = new int[nIntervals];
+                    double[] errors = new double[nIntervals * ErrorMetric.ERROR_NAMES.length];
+                    for (int k = 0; k < nIntervals; k++) {
+                        IntList curInterval = workloadIntervals.get(k);
+                        double curTotal;
+                        if (batchQueries) {
+                            DoubleList batchResult = batchResults.get(k);
+                            for (int i = 0; i < batchResult.size(); i++) {
+                                ctx.results[i] = batchResult.get(i);
+                            }
+                            curTotal = batchTotals[k];
+                            spans[k] = batchSpans[k];
+                            queryMs[k] = batchQueryMs;
+                        } else {
+                            p_raw.setRange(curInterval.get(0), curInterval.get(1));
+                            sketchTotalTimer.start();
+                            queryTimer.reset();
+                            queryTimer.start();
+                            p_raw.query(board, xToTrackRaw, ctx.results);
+                            queryTimer.end();
+                            sketchTotalTimer.end();
+                            curTotal = p_raw.total();
+                            spans[k] = p_raw.span();
+                            queryMs[k] = queryTimer.getTotalMs();
+                        }
 
                         if (curSketch.equals("top_values") && !memoizedTrueResults.containsKey(curInterval)) {
-                            memoizedTrueResults.put(curInterval, queryResults);
-                            memoizedTrueTotals.put(curInterval, p_raw.total());
+                            memoizedTrueResults.put(curInterval, DoubleArrayList.newListWith(ctx.results.clone()));
+                            memoizedTrueTotals.put(curInterval, curTotal);
                         }
-                        DoubleList trueResults = memoizedTrueResults.get(curInterval);
-                        double trueTotal = memoizedTrueTotals.get(curInterval);
-                        int curSpan = p_raw.span();
-
-                        MutableMap<String, Double> errorQuantities = ErrorMetric.calcErrors(
-                                trueResults,
-                                queryResults
-                        );
+                        trueTotals[k] = memoizedTrueTotals.get(curInterval);
+                        ctx.calcErrors(memoizedTrueResults.get(curInterval));
+                        System.arraycopy(ctx.errors, 0, errors, k * ctx.errors.length, ctx.errors.length);
+                    }
 
+                    for (int k = 0; k < nIntervals; k++) {
+                        IntList curInterval = workloadIntervals.get(k);
+                        int startIdx = curInterval.get(0);
+                        int endIdx = curInterval.get(1);
                         MutableMap<String, String> curResults = baseResults.clone();
                         curResults.put("sketch", curSketch);
                         curResults.put("size", Integer.toString(curSize));
                         curResults.put("start_idx", Integer.toString(startIdx));
                         curResults.put("end_idx", Integer.toString(endIdx));
                         curResults.put("query_len", Integer.toString(endIdx - startIdx));
-                        curResults.put("segment_span", Integer.toString(curSpan));
+                        curResults.put("segment_span", Integer.toString(spans[k]));
                         curResults.put("granularity", Integer.toString(granularity));
-                        curResults.put("total", Double.toString(trueTotal));
-                        curResults.put("query_time", Double.toString(queryTimer.getTotalMs()));
+                        curResults.put("total", Double.toString(trueTotals[k]));
+                        curResults.put("query_time", Double.toString(queryMs[k]));
                         curResults.put("accumulator_size", Integer.toString(accumulatorSize));
-                        errorQuantities.forEachKeyValue((String errType, Double errValue) -> {
-                            curResults.put(errType, errValue.toString());
-                        });
+                        for (int e = 0; e < ErrorMetric.ERROR_NAMES.length; e++) {
+                            curResults.put(
+                                    ErrorMetric.ERROR_NAMES[e],
+                                    Double.toString(errors[k * ErrorMetric.ERROR_NAMES.length + e])
+                            );
+                        }
                         results.add(curResults);
                     }
                 } // accumulators
@@ -189,9 +307,9 @@ public class QueryRunner<T, TL extends PrimitiveIterable> {
         int curSize = sizes.get(0);
 
         xTrackSource.setHasHeader(true);
-        FastList<T> xToTrack = xTrackSource.get(
-                xToTrackPath, 0
-        );
+        // the hot query loop probes with the primitive list, the boxed one serves batch queries
+        PrimitiveIterable xToTrackRaw = xTrackSource.getPrimitive(xToTrackPath, 0);
+        FastList<T> xToTrack = Accumulator.box(xToTrackRaw);
 
         MutableMap<LongList, DoubleList> memoizedTrueResults = new UnifiedMap<>();
         MutableMap<LongList, Double> memoizedTrueTotals = new UnifiedMap<>();
@@ -210,11 +328,32 @@ public class QueryRunner<T, TL extends PrimitiveIterable> {
                             granularity
                     ));
             File fIn = new File(boardPath);
-            StoryBoard<T> board = IOUtil.loadBoard(fIn);
-
-            CubeQueryProcessor<T> p_raw = genFactory.getCubeQueryProcessor(curSketch);
+            StoryBoard<T> board = loadBoard(fIn);
+            board.buildDimensionIndex();
+
+            CubeQueryProcessor<T> p_raw = genFactory.getCubeQueryProcessor(curSketch, queryPool);
+            if (!rollups.isEmpty()) {
+                FastList<CubeRollup<T>> loadedRollups = new FastList<>(rollups.size());
+                for (List<Integer> curRollupDims : rollups) {
+                    IntArrayList dims = new IntArrayList();
+                    curRollupDims.forEach(dims::add);
+                    String rollupPath = String.format("%s/%s",
+                            boardDir,
+                            IOUtil.getRollupName(
+                                    curSketch,
+                                    curSize,
+                                    granularity,
+                                    dims
+                            ));
+                    StoryBoard<T> rollupBoard = loadBoard(new File(rollupPath));
+                    rollupBoard.buildDimensionIndex();
+                    loadedRollups.add(new CubeRollup<>(dims, rollupBoard));
+                }
+                p_raw = new RollupCubeProcessor<>(p_raw, loadedRollups);
+            }
             Timer sketchTotalTimer = new Timer();
             Timer queryTimer = new Timer();
+            QueryContext ctx = new QueryContext(xToTrack.size());
 
             for (double curWorkloadProbability : queryWorkloadProbs) {
                 System.out.println("Running with Workload Prob: "+curWorkloadProbability);
@@ -229,61 +368,79 @@ public class QueryRunner<T, TL extends PrimitiveIterable> {
                 // Warm-Up
                 for (LongList curDimensions: workloadDimensions) {
                     p_raw.setDimensions(curDimensions);
-                    p_raw.query(board, xToTrack);
+                    p_raw.query(board, xToTrackRaw, ctx.results);
                 }
                 System.runFinalization();
                 System.gc();
                 System.out.println("Warmed Up");
 
-                MutableMap<LongList, Map<String, String>> memoized = new UnifiedMap<>();
+                // per query measurements, turned into result rows once the timed loop is done
+                int nWorkload = workloadDimensions.size();
+                int[] recordIdx = new int[nWorkload];
+                double[] queryMs = new double[nWorkload];
+                double[] trueTotals = new double[nWorkload];
+                int[] spans = new int[nWorkload];
+                double[] errors = new double[nWorkload * ErrorMetric.ERROR_NAMES.length];
+                MutableObjectIntMap<LongList> memoized = new ObjectIntHashMap<>();
 
                 int queryNum = 0;
-                for (LongList curFilterDimensions: workloadDimensions) {
+                for (int k = 0; k < nWorkload; k++) {
+                    LongList curFilterDimensions = workloadDimensions.get(k);
                     if (cacheQueries && memoized.containsKey(curFilterDimensions)) {
-                        results.add(memoized.get(curFilterDimensions));
+                        recordIdx[k] = memoized.get(curFilterDimensions);
                         continue;
                     }
+                    recordIdx[k] = k;
 
                     p_raw.setDimensions(curFilterDimensions);
                     sketchTotalTimer.start();
                     queryTimer.reset();
                     queryTimer.start();
-                    DoubleList queryResults = p_raw.query(board, xToTrack);
+                    p_raw.query(board, xToTrackRaw, ctx.results);
                     queryTimer.end();
                     sketchTotalTimer.end();
 
                     if (curSketch.equals("top_values") && !memoizedTrueResults.containsKey(curFilterDimensions)) {
-                        memoizedTrueResults.put(curFilterDimensions, queryResults);
+                        memoizedTrueResults.put(curFilterDimensions, DoubleArrayList.newListWith(ctx.results.clone()));
                         memoizedTrueTotals.put(curFilterDimensions, p_raw.total());
                     }
-                    DoubleList trueResults = memoizedTrueResults.get(curFilterDimensions);
-                    double trueTotal = memoizedTrueTotals.get(curFilterDimensions);
-                    int curSpan = p_raw.span();
-
-                    MutableMap<String, Double> errorQuantities = ErrorMetric.calcErrors(
-                            trueResults,
-                            queryResults
-                    );
+                    trueTotals[k] = memoizedTrueTotals.get(curFilterDimensions);
+                    spans[k] = p_raw.span();
+                    queryMs[k] = queryTimer.getTotalMs();
+                    ctx.calcErrors(memoizedTrueResults.get(curFilterDimensions));
+                    System.arraycopy(ctx.errors, 0, errors, k * ctx.errors.length, ctx.errors.length);
+                    queryNum++;
+                    if (cacheQueries) {
+                        memoized.put(curFilterDimensions, k);
+                    }
+                }
 
+                FastList<Map<String, String>> records = new FastList<>(nWorkload);
+                for (int k = 0; k < nWorkload; k++) {
+                    if (recordIdx[k] != k) {
+                        records.add(records.get(recordIdx[k]));
+                        continue;
+                    }
+                    LongList curFilterDimensions = workloadDimensions.get(k);
                     int numFilters = curFilterDimensions.select((long x) -> (x >= 0)).size();
 
                     MutableMap<String, String> curResults = baseResults.clone();
                     curResults.put("sketch", curSketch);
                     curResults.put("size", Integer.toString(curSize));
                     curResults.put("query_len", Integer.toString(numFilters));
-                    curResults.put("total", Double.toString(trueTotal));
-                    curResults.put("query_time", Double.toString(queryTimer.getTotalMs()));
-                    curResults.put("segment_span", Integer.toString(curSpan));
+                    curResults.put("total", Double.toString(trueTotals[k]));
+                    curResults.put("query_time", Double.toString(queryMs[k]));
+                    curResults.put("segment_span", Integer.toString(spans[k]));
                     curResults.put("workload_query_prob", Double.toString(curWorkloadProbability));
-                    errorQuantities.forEachKeyValue((String errType, Double errValue) -> {
-                        curResults.put(errType, errValue.toString());
-                    });
-                    results.add(curResults);
-                    queryNum++;
-                    if (cacheQueries) {
-                        memoized.put(curFilterDimensions, curResults);
+                    for (int e = 0; e < ErrorMetric.ERROR_NAMES.length; e++) {
+                        curResults.put(
+                                ErrorMetric.ERROR_NAMES[e],
+                                Double.toString(errors[k * ErrorMetric.ERROR_NAMES.length + e])
+                        );
                     }
+                    records.add(curResults);
                 }
+                results.addAll(records);
                 System.out.println("Query Runner #: "+queryNum);
             }
             System.out.println("Sketch Ran in Time: " + sketchTotalTimer.getTotalMs());
@@ -320,7 +477,9 @@ public class QueryRunner<T, TL extends PrimitiveIterable> {
         } else {
             QueryRunner<Long, LongList> runner = new QueryRunner<>(config);
             SimpleCSVDataSource<Long> xTrackSource = new SimpleCSVDataSourceLong();
-            SketchGenFactory<Long, LongList> sketchGenFactory = new FreqSketchGenFactory();
+            SketchGenFactory<Long, LongList> sketchGenFactory = new FreqSketchGenFactory(
+                    config.get("off_heap", false)
+            );
             if (runner.isCube) {
                 runner.runCube(xTrackSource, sketchGenFactory);
             } else {
@@ -13,6 +13,7 @@ import summary.accumulator.Accumulator;
 import summary.accumulator.ExactFreqAccumulator;
 import summary.accumulator.MapFreqAccumulator;
 import summary.accumulator.MergingAccumulator;
+import summary.accumulator.OffHeapLongDoubleCounter;
 import summary.compressor.freq.*;
 import summary.custom.CMSSketchGen;
 import summary.custom.YahooMGGen;
@@ -21,19 +22,33 @@ import summary.gen.ItemCounterCompressorGen;
 import summary.gen.SketchGen;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class FreqSketchGenFactory implements SketchGenFactory<Long, LongList> {
+    // keep item counts in direct buffers instead of heap maps
+    public boolean offHeap;
+
+    public FreqSketchGenFactory() {
+        this(false);
+    }
+    public FreqSketchGenFactory(boolean offHeap) {
+        this.offHeap = offHeap;
+    }
+
     public SketchGen<Long, LongList> getSketchGen(
             String sketch,
             List<Long> xToTrack,
             int maxLength
             ) {
         if (sketch.equals("top_values")) {
-            return new ItemCounterCompressorGen(new TrackedFreqCompressor(xToTrack));
+            return getCompressorGen(new TrackedFreqCompressor(xToTrack));
         } else if (sketch.equals("truncation")) {
-            return new ItemCounterCompressorGen(new TruncationFreqCompressor());
+            return getCompressorGen(new TruncationFreqCompressor());
         } else if (sketch.equals("cooperative")) {
-            return new ItemCounterCompressorGen(new CoopFreqCompressor(0));
+            if (offHeap) {
+                return getCompressorGen(new CoopFreqCompressor(0, new OffHeapLongDoubleCounter()));
+            }
+            return getCompressorGen(new CoopFreqCompressor(0));
         } else if (sketch.equals("yahoo_mg")) {
             return new YahooMGGen();
         } else if (sketch.equals("cms_min")) {
@@ -44,7 +59,7 @@ public class FreqSketchGenFactory implements SketchGenFactory<Long, LongList> {
                         || sketch.equals("pps_nobias")
                         || sketch.equals("pps_nosize")
         ) {
-            return new ItemCounterCompressorGen(new HaircombCompressor(0));
+            return getCompressorGen(new HaircombCompressor(0));
         } else if (sketch.equals("dyadic_truncation")) {
             int maxHeight = (int) FastMath.log(2.0, maxLength);
             return new DyadicItemCounterCompressorGen(
@@ -57,11 +72,18 @@ public class FreqSketchGenFactory implements SketchGenFactory<Long, LongList> {
                 || sketch.equals("random_sample_strat")
                 || sketch.equals("random_sample_coop")
         ) {
-            return new ItemCounterCompressorGen(new USampleFreqCompressor(0));
+            return getCompressorGen(new USampleFreqCompressor(0));
         }
         throw new RuntimeException("Invalid sketch name");
     }
 
+    ItemCounterCompressorGen getCompressorGen(ItemCounterCompressor c) {
+        if (offHeap) {
+            return new ItemCounterCompressorGen(c, OffHeapLongDoubleCounter::new);
+        }
+        return new ItemCounterCompressorGen(c);
+    }
+
     @Override
     public Accumulator<Long, LongList> getAccumulator(
             String sketch
@@ -81,6 +103,9 @@ public class FreqSketchGenFactory implements SketchGenFactory<Long, LongList> {
                 || sketch.equals("random_sample_strat")
                 || sketch.equals("random_sample_coop")
         ) {
+            if (offHeap) {
+                return new MapFreqAccumulator(new OffHeapLongDoubleCounter());
+            }
             return new MapFreqAccumulator();
         } else if (sketch.equals("yahoo_mg")) {
             return new MergingAccumulator<>(new YahooMGGen(), LongLists.immutable.empty());
@@ -94,7 +119,8 @@ public class FreqSketchGenFactory implements SketchGenFactory<Long, LongList> {
     public LinearQueryProcessor<Long> getLinearQueryProcessor(
             String sketch,
             int maxLength,
-            int accSize
+            int accSize,
+            ForkJoinPool pool
     ) {
         if (sketch.equals("dyadic_truncation")) {
             int maxHeight = (int) FastMath.log(2.0, maxLength);
@@ -104,13 +130,26 @@ public class FreqSketchGenFactory implements SketchGenFactory<Long, LongList> {
                     accSize
             );
         } else {
-            return new LinearAccProcessor<>(this.getAccumulator(sketch), accSize);
+            LinearAccProcessor<Long, LongList> p = new LinearAccProcessor<>(
+                    () -> getAccumulator(sketch),
+                    accSize
+            );
+            if (pool != null) {
+                p.setPool(pool);
+            }
+            return p;
         }
     }
 
     @Override
-    public CubeQueryProcessor<Long> getCubeQueryProcessor(String sketch) {
-        return new CubeAccProcessor<>(getAccumulator(sketch));
+    public CubeQueryProcessor<Long> getCubeQueryProcessor(String sketch, ForkJoinPool pool) {
+        CubeAccProcessor<Long, LongList> p = new CubeAccProcessor<>(
+                () -> getAccumulator(sketch)
+        );
+        if (pool != null) {
+            p.setPool(pool);
+        }
+        return p;
     }
 
     @Override
@@ -23,6 +23,7 @@ import summary.gen.SeqCounterCompressorGen;
 import summary.gen.SketchGen;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public class QuantileSketchGenFactory implements SketchGenFactory<Double, DoubleList> {
     public SketchGen<Double, DoubleList> getSketchGen(
@@ -98,11 +99,29 @@ public class QuantileSketchGenFactory implements SketchGenFactory<Double, Double
         throw new RuntimeException("Unsupported Sketch: "+sketch);
     }
 
+    /**
+     * Accumulator for queries that add all matching rows in one batch and
+     * never compress: counter sketches use the k-way merge of
+     * SortedQuantileAccumulator instead of re-sorting the concatenated rows.
+     * This needs every CounterDoubleSketch row sorted by value, which all the
+     * counter compressors here produce; SortedQuantileAccumulator asserts it.
+     */
+    public Accumulator<Double, DoubleList> getBatchAccumulator(
+            String sketch
+    ) {
+        Accumulator<Double, DoubleList> acc = getAccumulator(sketch);
+        if (acc instanceof ListQuantileAccumulator) {
+            return new SortedQuantileAccumulator();
+        }
+        return acc;
+    }
+
     @Override
     public LinearQueryProcessor<Double> getLinearQueryProcessor(
             String sketch,
             int maxLength,
-            int accumulatorSize
+            int accumulatorSize,
+            ForkJoinPool pool
             ) {
         if (sketch.equals("dyadic_truncation")) {
             int maxHeight = (int) FastMath.log(2.0, maxLength);
@@ -112,13 +131,30 @@ public class QuantileSketchGenFactory implements SketchGenFactory<Double, Double
                     accumulatorSize
             );
         } else {
-            return new LinearAccProcessor<>(this.getAccumulator(sketch), accumulatorSize);
+            // compression differs between the two list accumulators, so
+            // the merging one is only used when nothing is compressed
+            LinearAccProcessor<Double, DoubleList> p = new LinearAccProcessor<>(
+                    accumulatorSize == 0
+                            ? () -> getBatchAccumulator(sketch)
+                            : () -> getAccumulator(sketch),
+                    accumulatorSize
+            );
+            if (pool != null) {
+                p.setPool(pool);
+            }
+            return p;
         }
     }
 
     @Override
-    public CubeQueryProcessor<Double> getCubeQueryProcessor(String sketch) {
-        return new CubeAccProcessor<>(getAccumulator(sketch));
+    public CubeQueryProcessor<Double> getCubeQueryProcessor(String sketch, ForkJoinPool pool) {
+        CubeAccProcessor<Double, DoubleList> p = new CubeAccProcessor<>(
+                () -> getBatchAccumulator(sketch)
+        );
+        if (pool != null) {
+            p.setPool(pool);
+        }
+        return p;
     }
 
     @Override
@@ -1,14 +1,19 @@
 package runner.factory;
 
+import board.PrefixIndex;
 import board.planner.CubeOptimizer;
 import board.planner.PlanOptimizer;
 import board.query.CubeQueryProcessor;
+import board.query.DyadicLinearAccProcessor;
 import board.query.LinearQueryProcessor;
+import board.query.PrefixLinearAccProcessor;
+import org.apache.commons.math3.util.FastMath;
 import org.eclipse.collections.api.PrimitiveIterable;
 import summary.accumulator.Accumulator;
 import summary.gen.SketchGen;
 
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 public interface SketchGenFactory<T, TL extends PrimitiveIterable> {
     SketchGen<T, TL> getSketchGen(
@@ -19,13 +24,50 @@ public interface SketchGenFactory<T, TL extends PrimitiveIterable> {
     Accumulator<T, TL> getAccumulator(
             String sketch
     );
-    LinearQueryProcessor<T> getLinearQueryProcessor(
+    default LinearQueryProcessor<T> getLinearQueryProcessor(
             String sketch,
             int maxLength,
             int accSize
+    ) {
+        return getLinearQueryProcessor(sketch, maxLength, accSize, null);
+    }
+    /**
+     * @param pool pool to split each query across, null for sequential queries
+     */
+    LinearQueryProcessor<T> getLinearQueryProcessor(
+            String sketch,
+            int maxLength,
+            int accSize,
+            ForkJoinPool pool
     );
-    CubeQueryProcessor<T> getCubeQueryProcessor(
+    /**
+     * @return processor for boards built by DyadicIndex from a single tier board
+     */
+    default LinearQueryProcessor<T> getDyadicIndexProcessor(
+            String sketch,
+            int maxLength,
+            int accSize
+    ) {
+        int maxHeight = (int) FastMath.log(2.0, maxLength);
+        return new DyadicLinearAccProcessor<>(getAccumulator(sketch), maxHeight, accSize);
+    }
+    /**
+     * @return processor answering ranges from the checkpoints of index, without compression
+     */
+    default LinearQueryProcessor<T> getPrefixIndexProcessor(
+            String sketch,
+            PrefixIndex<T> index
+    ) {
+        return new PrefixLinearAccProcessor<>(getAccumulator(sketch), index);
+    }
+    default CubeQueryProcessor<T> getCubeQueryProcessor(
             String sketch
+    ) {
+        return getCubeQueryProcessor(sketch, null);
+    }
+    CubeQueryProcessor<T> getCubeQueryProcessor(
+            String sketch,
+            ForkJoinPool pool
     );
     PlanOptimizer<TL> getPlanOptimizer(
             String sketch,
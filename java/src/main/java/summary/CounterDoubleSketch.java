@@ -1,8 +1,17 @@
 package summary;
 
-public class CounterDoubleSketch implements Sketch<Double> {
+import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
+import summary.accumulator.SortedQuantileAccumulator;
+
+import java.util.Arrays;
+
+public class CounterDoubleSketch implements DoubleSketch {
+    private static final long serialVersionUID = 5801415730055212016L;
+
     public double[] values;
     public double[] weights;
+    // cumWeights[i] is the total weight of values[0..i], built on first estimate
+    transient double[] cumWeights;
 
     public CounterDoubleSketch(double[] values, double[] weights) {
         this.values = values;
@@ -32,22 +41,128 @@ public class CounterDoubleSketch implements Sketch<Double> {
         return values.length;
     }
 
+    /**
+     * Sorted merge of both value lists, summing the weights of equal values.
+     */
+    @Override
+    public CounterDoubleSketch merge(Sketch<Double> otherArg) {
+        if (!(otherArg instanceof CounterDoubleSketch)) {
+            throw new RuntimeException("Invalid sketch type: "+otherArg.getClass().getCanonicalName());
+        }
+        CounterDoubleSketch other = (CounterDoubleSketch) otherArg;
+        double[] otherValues = other.values;
+        double[] otherWeights = other.weights;
+        int n1 = values.length;
+        int n2 = otherValues.length;
+        double[] newValues = new double[n1 + n2];
+        double[] newWeights = new double[n1 + n2];
+        int i = 0, j = 0, k = 0;
+        while (i < n1 || j < n2) {
+            double curValue;
+            double curWeight;
+            if (j >= n2 || (i < n1 && values[i] <= otherValues[j])) {
+                curValue = values[i];
+                curWeight = weights[i++];
+            } else {
+                curValue = otherValues[j];
+                curWeight = otherWeights[j++];
+            }
+            if (k > 0 && newValues[k-1] == curValue) {
+                newWeights[k-1] += curWeight;
+            } else {
+                newValues[k] = curValue;
+                newWeights[k] = curWeight;
+                k++;
+            }
+        }
+        if (k < n1 + n2) {
+            newValues = Arrays.copyOf(newValues, k);
+            newWeights = Arrays.copyOf(newWeights, k);
+        }
+        return new CounterDoubleSketch(newValues, newWeights);
+    }
+
+    /**
+     * Merges both sketches and compresses the result down to size items
+     * with SortedQuantileAccumulator.compress.
+     */
+    public CounterDoubleSketch merge(Sketch<Double> otherArg, int size) {
+        CounterDoubleSketch merged = merge(otherArg);
+        if (merged.size() <= size) {
+            return merged;
+        }
+        SortedQuantileAccumulator acc = new SortedQuantileAccumulator(
+                DoubleArrayList.newListWith(merged.values),
+                DoubleArrayList.newListWith(merged.weights)
+        );
+        acc.compress(size);
+        return (CounterDoubleSketch) acc.toSketch();
+    }
+
+    public double[] getCumWeights() {
+        double[] curCumWeights = cumWeights;
+        if (curCumWeights == null) {
+            int n = values.length;
+            curCumWeights = new double[n];
+            double total = 0.0;
+            for (int i = 0; i < n; i++) {
+                total += weights[i];
+                curCumWeights[i] = total;
+            }
+            cumWeights = curCumWeights;
+        }
+        return curCumWeights;
+    }
+
+    /**
+     * @return number of values less than or equal to x
+     */
+    public int upperBound(double x) {
+        int lo = 0;
+        int hi = values.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[mid] <= x) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
     @Override
-    public Sketch<Double> merge(Sketch<Double> otherArg) {
-        throw new RuntimeException("Not Implemented");
+    public double estimate(double xQuery) {
+        int idx = upperBound(xQuery);
+        return idx == 0 ? 0.0 : getCumWeights()[idx - 1];
     }
 
+    /**
+     * Estimates the rank of each of xs into out, using a single merge pass
+     * when xs is in ascending order.
+     */
     @Override
-    public double estimate(Double xquery) {
-        double xQVal = xquery;
-        double total = 0.0;
-        for (int i = 0; i < values.length; i++) {
-            double x = values[i];
-            if (x > xQVal) {
-                break;
+    public void estimate(double[] xs, double[] out) {
+        double[] curCumWeights = getCumWeights();
+        int nXs = xs.length;
+        boolean xsSorted = true;
+        for (int i = 1; i < nXs && xsSorted; i++) {
+            xsSorted = xs[i-1] <= xs[i];
+        }
+        if (!xsSorted) {
+            for (int i = 0; i < nXs; i++) {
+                out[i] = estimate(xs[i]);
+            }
+            return;
+        }
+        int n = values.length;
+        int j = 0;
+        for (int i = 0; i < nXs; i++) {
+            double x = xs[i];
+            while (j < n && values[j] <= x) {
+                j++;
             }
-            total += weights[i];
+            out[i] = j == 0 ? 0.0 : curCumWeights[j - 1];
         }
-        return total;
     }
 }
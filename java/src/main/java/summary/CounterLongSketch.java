@@ -1,29 +1,130 @@
 package summary;
 
-import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
-import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
+import summary.accumulator.LongDoubleCounter;
+import summary.compressor.freq.ItemCounterCompressor;
+
+import java.util.Arrays;
+
+public class CounterLongSketch implements LongSketch {
+    private static final long serialVersionUID = 7242808811055504068L;
 
-public class CounterLongSketch implements Sketch<Long> {
     public long[] values;
     public double[] weights;
+    // values are in ascending order
+    public boolean sorted;
     public CounterLongSketch(long[] values, double[] weights) {
+        this(values, weights, false);
+    }
+
+    public CounterLongSketch(long[] values, double[] weights, boolean sorted) {
         this.values = values;
         this.weights = weights;
+        this.sorted = sorted;
     }
 
     public static CounterLongSketch fromMap(LongDoubleHashMap map) {
+        long[] values = map.keysView().toSortedArray();
+        double[] weights = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            weights[i] = map.get(values[i]);
+        }
+        return new CounterLongSketch(values, weights, true);
+    }
+
+    public static CounterLongSketch fromMap(LongDoubleCounter map) {
         int n = map.size();
-        LongArrayList values = new LongArrayList(n);
-        DoubleArrayList weights = new DoubleArrayList(n);
+        long[] values = new long[n];
+        double[] weights = new double[n];
+        int[] idx = new int[1];
         map.forEachKeyValue((long k, double v) -> {
-            values.add(k);
-            weights.add(v);
+            values[idx[0]] = k;
+            weights[idx[0]] = v;
+            idx[0]++;
         });
-        return new CounterLongSketch(
-                values.toArray(),
-                weights.toArray()
-        );
+        // keys of a counter are distinct
+        sortParallel(values, weights);
+        return new CounterLongSketch(values, weights, true);
+    }
+
+    /**
+     * Sorts the values in place, keeping each weight with its value.
+     * Repeated values keep their input order but leave sorted false, since
+     * a binary search could land on any copy while estimate must return the first.
+     */
+    public CounterLongSketch sortValues() {
+        if (sorted) {
+            return this;
+        }
+        sortParallel(values, weights);
+        boolean distinct = true;
+        for (int i = 1; i < values.length && distinct; i++) {
+            distinct = values[i-1] < values[i];
+        }
+        sorted = distinct;
+        return this;
+    }
+
+    static final int INSERTION_SORT_MAX = 32;
+
+    /**
+     * Stable sort of values, applying the same moves to weights. Small
+     * arrays are sorted by insertion, larger ones by a bottom-up merge sort.
+     */
+    static void sortParallel(long[] values, double[] weights) {
+        int n = values.length;
+        boolean ascending = true;
+        for (int i = 1; i < n && ascending; i++) {
+            ascending = values[i-1] <= values[i];
+        }
+        if (ascending) {
+            return;
+        }
+        if (n <= INSERTION_SORT_MAX) {
+            for (int i = 1; i < n; i++) {
+                long v = values[i];
+                double w = weights[i];
+                int j = i - 1;
+                while (j >= 0 && values[j] > v) {
+                    values[j + 1] = values[j];
+                    weights[j + 1] = weights[j];
+                    j--;
+                }
+                values[j + 1] = v;
+                weights[j + 1] = w;
+            }
+            return;
+        }
+        long[] srcValues = values;
+        double[] srcWeights = weights;
+        long[] dstValues = new long[n];
+        double[] dstWeights = new double[n];
+        for (int width = 1; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                int mid = Math.min(lo + width, n);
+                int hi = Math.min(lo + 2 * width, n);
+                int i = lo, j = mid;
+                for (int k = lo; k < hi; k++) {
+                    if (j >= hi || (i < mid && srcValues[i] <= srcValues[j])) {
+                        dstValues[k] = srcValues[i];
+                        dstWeights[k] = srcWeights[i++];
+                    } else {
+                        dstValues[k] = srcValues[j];
+                        dstWeights[k] = srcWeights[j++];
+                    }
+                }
+            }
+            long[] tmpValues = srcValues;
+            srcValues = dstValues;
+            dstValues = tmpValues;
+            double[] tmpWeights = srcWeights;
+            srcWeights = dstWeights;
+            dstWeights = tmpWeights;
+        }
+        if (srcValues != values) {
+            System.arraycopy(srcValues, 0, values, 0, n);
+            System.arraycopy(srcWeights, 0, weights, 0, n);
+        }
     }
 
     @Override
@@ -49,21 +150,112 @@ public class CounterLongSketch implements Sketch<Long> {
         return out.toString();
     }
 
+    /**
+     * Sums the weights of both sketches, with a linear merge when both are
+     * sorted and a hash merge otherwise.
+     */
     @Override
-    public Sketch<Long> merge(Sketch<Long> otherArg) {
-        throw new RuntimeException("Not Implemented");
+    public CounterLongSketch merge(Sketch<Long> otherArg) {
+        CounterLongSketch other = castCounter(otherArg);
+        if (!sorted || !other.sorted) {
+            return fromMap(mergeToMap(other));
+        }
+        long[] otherValues = other.values;
+        double[] otherWeights = other.weights;
+        int n1 = values.length;
+        int n2 = otherValues.length;
+        long[] newValues = new long[n1 + n2];
+        double[] newWeights = new double[n1 + n2];
+        int i = 0, j = 0, k = 0;
+        while (i < n1 || j < n2) {
+            if (j >= n2 || (i < n1 && values[i] < otherValues[j])) {
+                newValues[k] = values[i];
+                newWeights[k] = weights[i++];
+            } else if (i >= n1 || otherValues[j] < values[i]) {
+                newValues[k] = otherValues[j];
+                newWeights[k] = otherWeights[j++];
+            } else {
+                newValues[k] = values[i];
+                newWeights[k] = weights[i++] + otherWeights[j++];
+            }
+            k++;
+        }
+        if (k < n1 + n2) {
+            newValues = Arrays.copyOf(newValues, k);
+            newWeights = Arrays.copyOf(newWeights, k);
+        }
+        return new CounterLongSketch(newValues, newWeights, true);
+    }
+
+    /**
+     * Merges both sketches and compresses the result down to size items.
+     */
+    public CounterLongSketch merge(Sketch<Long> otherArg, ItemCounterCompressor compressor, int size) {
+        LongDoubleHashMap merged = mergeToMap(castCounter(otherArg));
+        if (merged.size() <= size) {
+            return fromMap(merged);
+        }
+        return compressor.compress(merged, size);
+    }
+
+    LongDoubleHashMap mergeToMap(CounterLongSketch other) {
+        LongDoubleHashMap merged = new LongDoubleHashMap(values.length + other.values.length);
+        for (int i = 0; i < values.length; i++) {
+            merged.addToValue(values[i], weights[i]);
+        }
+        for (int i = 0; i < other.values.length; i++) {
+            merged.addToValue(other.values[i], other.weights[i]);
+        }
+        return merged;
+    }
+
+    static CounterLongSketch castCounter(Sketch<Long> otherArg) {
+        if (!(otherArg instanceof CounterLongSketch)) {
+            throw new RuntimeException("Invalid sketch type: "+otherArg.getClass().getCanonicalName());
+        }
+        return (CounterLongSketch) otherArg;
     }
 
     @Override
-    public double estimate(Long xQuery) {
-        long xQueryVal = xQuery;
+    public double estimate(long xQuery) {
+        if (sorted) {
+            int idx = Arrays.binarySearch(values, xQuery);
+            return idx >= 0 ? weights[idx] : 0;
+        }
         int n = values.length;
         for (int i = 0; i < n; i++) {
-            double x = values[i];
-            if (x == xQueryVal) {
+            if (values[i] == xQuery) {
                 return weights[i];
             }
         }
         return 0;
     }
+
+    /**
+     * Estimates each of xs into out, merge-joining against the values when
+     * both are in ascending order.
+     */
+    @Override
+    public void estimate(long[] xs, double[] out) {
+        int nXs = xs.length;
+        boolean xsSorted = sorted;
+        for (int i = 1; i < nXs && xsSorted; i++) {
+            xsSorted = xs[i-1] <= xs[i];
+        }
+        if (!xsSorted) {
+            for (int i = 0; i < nXs; i++) {
+                out[i] = estimate(xs[i]);
+            }
+            return;
+        }
+        int n = values.length;
+        int j = 0;
+        for (int i = 0; i < nXs; i++) {
+            long x = xs[i];
+            while (j < n && values[j] < x) {
+                j++;
+            }
+            out[i] = (j < n && values[j] == x) ? weights[j] : 0;
+        }
+    }
 }
@@ -2,7 +2,9 @@ package summary;
 
 import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
 
-public class DictSketch implements Sketch<Long> {
+public class DictSketch implements LongSketch {
+    private static final long serialVersionUID = -3527838666813724234L;
+
     public LongDoubleHashMap vals;
     public DictSketch(LongDoubleHashMap vals) {
         this.vals = vals;
@@ -26,7 +28,7 @@ public class DictSketch implements Sketch<Long> {
     }
 
     @Override
-    public double estimate(Long x) {
+    public double estimate(long x) {
         return vals.getIfAbsent(x, 0.0);
     }
 }
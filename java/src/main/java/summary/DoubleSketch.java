@@ -0,0 +1,19 @@
+package summary;
+
+/**
+ * Sketch over double values that can be probed without boxing.
+ */
+public interface DoubleSketch extends Sketch<Double> {
+    double estimate(double x);
+
+    @Override
+    default double estimate(Double x) {
+        return estimate(x.doubleValue());
+    }
+
+    default void estimate(double[] xs, double[] out) {
+        for (int i = 0; i < xs.length; i++) {
+            out[i] = estimate(xs[i]);
+        }
+    }
+}
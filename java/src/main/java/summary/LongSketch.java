@@ -0,0 +1,19 @@
+package summary;
+
+/**
+ * Sketch over long items that can be probed without boxing.
+ */
+public interface LongSketch extends Sketch<Long> {
+    double estimate(long x);
+
+    @Override
+    default double estimate(Long x) {
+        return estimate(x.longValue());
+    }
+
+    default void estimate(long[] xs, double[] out) {
+        for (int i = 0; i < xs.length; i++) {
+            out[i] = estimate(xs[i]);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package summary;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Struct-of-arrays storage for a column of counter sketches.
+ * Row i occupies [offsets[i], offsets[i+1]) of the values and weights arrays.
+ * Exactly one of longValues / doubleValues is set.
+ */
+public class PackedCounters implements Serializable {
+    private static final long serialVersionUID = 7038294256623871220L;
+
+    public long[] longValues;
+    public double[] doubleValues;
+    public double[] weights;
+    public int[] offsets;
+    // every long row has ascending values
+    public boolean sortedValues;
+
+    public PackedCounters(long[] longValues, double[] doubleValues, double[] weights, int[] offsets) {
+        this.longValues = longValues;
+        this.doubleValues = doubleValues;
+        this.weights = weights;
+        this.offsets = offsets;
+    }
+
+    /**
+     * @param sketches column of sketches
+     * @return packed copy of the column, or null if it holds anything but counter sketches
+     */
+    public static PackedCounters pack(List<? extends Sketch<?>> sketches) {
+        int nRows = sketches.size();
+        boolean allLong = true;
+        boolean allDouble = true;
+        boolean sortedValues = true;
+        long nItems = 0;
+        for (Sketch<?> curSketch : sketches) {
+            allLong &= curSketch instanceof CounterLongSketch;
+            sortedValues &= allLong && ((CounterLongSketch) curSketch).sorted;
+            allDouble &= curSketch instanceof CounterDoubleSketch;
+            nItems += curSketch.size();
+        }
+        if (nRows == 0 || !(allLong || allDouble) || nItems > Integer.MAX_VALUE) {
+            return null;
+        }
+
+        int[] offsets = new int[nRows + 1];
+        long[] longValues = allLong ? new long[(int) nItems] : null;
+        double[] doubleValues = allLong ? null : new double[(int) nItems];
+        double[] weights = new double[(int) nItems];
+        for (int i = 0; i < nRows; i++) {
+            int start = offsets[i];
+            int n;
+            if (allLong) {
+                CounterLongSketch curSketch = (CounterLongSketch) sketches.get(i);
+                n = curSketch.values.length;
+                System.arraycopy(curSketch.values, 0, longValues, start, n);
+                System.arraycopy(curSketch.weights, 0, weights, start, n);
+            } else {
+                CounterDoubleSketch curSketch = (CounterDoubleSketch) sketches.get(i);
+                n = curSketch.values.length;
+                System.arraycopy(curSketch.values, 0, doubleValues, start, n);
+                System.arraycopy(curSketch.weights, 0, weights, start, n);
+            }
+            offsets[i+1] = start + n;
+        }
+        PackedCounters packed = new PackedCounters(longValues, doubleValues, weights, offsets);
+        packed.sortedValues = sortedValues;
+        return packed;
+    }
+
+    public boolean isLong() {
+        return longValues != null;
+    }
+
+    public int numRows() {
+        return offsets.length - 1;
+    }
+
+    public int numItems() {
+        return offsets[offsets.length - 1];
+    }
+
+    public int rowSize(int row) {
+        return offsets[row+1] - offsets[row];
+    }
+
+    public Sketch<?> getSketch(int row) {
+        int start = offsets[row];
+        int end = offsets[row+1];
+        double[] rowWeights = Arrays.copyOfRange(weights, start, end);
+        if (isLong()) {
+            return new CounterLongSketch(
+                    Arrays.copyOfRange(longValues, start, end),
+                    rowWeights,
+                    sortedValues
+            );
+        } else {
+            return new CounterDoubleSketch(Arrays.copyOfRange(doubleValues, start, end), rowWeights);
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package summary;
+
+/**
+ * Row-addressable column of sketches, optionally backed by packed counters.
+ */
+public interface SketchRows<T> {
+    Sketch<T> getSketch(int row);
+
+    /**
+     * @return packed copy of every row, or null when rows are not packed
+     */
+    PackedCounters getPackedCounters();
+}
@@ -1,8 +1,13 @@
 package summary.accumulator;
 
+import org.eclipse.collections.api.DoubleIterable;
+import org.eclipse.collections.api.LongIterable;
 import org.eclipse.collections.api.PrimitiveIterable;
 import org.eclipse.collections.api.list.primitive.DoubleList;
+import org.eclipse.collections.impl.list.mutable.FastList;
+import summary.PackedCounters;
 import summary.Sketch;
+import summary.SketchRows;
 
 import java.util.List;
 
@@ -13,5 +18,84 @@ public interface Accumulator<T, TL extends PrimitiveIterable> {
     void addRaw(TL xs);
     void addSketch(Sketch<T> newSketch);
 
+    default void addSketches(List<Sketch<T>> newSketches) {
+        for (Sketch<T> newSketch : newSketches) {
+            addSketch(newSketch);
+        }
+    }
+
+    /**
+     * Adds rows rowIds[0, count) of board in one call, without compressing.
+     */
+    default void addSketches(SketchRows<T> board, int[] rowIds, int count) {
+        addSketches(board, rowIds, 0, count);
+    }
+
+    /**
+     * Adds rows rowIds[from, to) of board in one call, without compressing.
+     */
+    default void addSketches(SketchRows<T> board, int[] rowIds, int from, int to) {
+        PackedCounters packed = board.getPackedCounters();
+        if (packed != null) {
+            for (int k = from; k < to; k++) {
+                addPacked(packed, rowIds[k]);
+            }
+        } else {
+            FastList<Sketch<T>> sketches = new FastList<>(to - from);
+            for (int k = from; k < to; k++) {
+                sketches.add(board.getSketch(rowIds[k]));
+            }
+            addSketches(sketches);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    default void addPacked(PackedCounters packed, int row) {
+        addSketch((Sketch<T>) packed.getSketch(row));
+    }
+
+    /**
+     * Adds the contents of another accumulator of the same type into this one.
+     */
+    void merge(Accumulator<T, TL> other);
+
     DoubleList estimate(List<T> xToTrack);
+
+    /**
+     * Writes the estimates into out[0, xToTrack.size()) instead of a new list.
+     */
+    default void estimate(List<T> xToTrack, double[] out) {
+        DoubleList estimates = estimate(xToTrack);
+        for (int i = 0; i < estimates.size(); i++) {
+            out[i] = estimates.get(i);
+        }
+    }
+
+    /**
+     * Estimates for primitive items, boxing them unless overridden.
+     */
+    default void estimate(TL xToTrack, double[] out) {
+        estimate(Accumulator.<T>box(xToTrack), out);
+    }
+
+    /**
+     * @return boxed copy of a LongIterable or DoubleIterable
+     */
+    @SuppressWarnings("unchecked")
+    static <T> FastList<T> box(PrimitiveIterable xs) {
+        FastList<T> boxed = new FastList<>(xs.size());
+        if (xs instanceof LongIterable) {
+            ((LongIterable) xs).forEach(x -> boxed.add((T) Long.valueOf(x)));
+        } else if (xs instanceof DoubleIterable) {
+            ((DoubleIterable) xs).forEach(x -> boxed.add((T) Double.valueOf(x)));
+        } else {
+            throw new RuntimeException("Invalid item type: "+xs.getClass().getCanonicalName());
+        }
+        return boxed;
+    }
+
+    /**
+     * @return sketch holding the current accumulated contents
+     */
+    Sketch<T> toSketch();
 }
@@ -0,0 +1,40 @@
+package summary.accumulator;
+
+import org.eclipse.collections.api.list.primitive.DoubleList;
+import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
+
+import java.util.List;
+
+/**
+ * Accumulator over double values that is probed without boxing.
+ * The List based estimates unbox the values and adapt to the primitive ones.
+ */
+public interface DoubleAccumulator extends Accumulator<Double, DoubleList> {
+    @Override
+    void estimate(DoubleList xToTrack, double[] out);
+
+    default DoubleList estimate(DoubleList xToTrack) {
+        double[] out = new double[xToTrack.size()];
+        estimate(xToTrack, out);
+        return DoubleArrayList.newListWith(out);
+    }
+
+    @Override
+    default DoubleList estimate(List<Double> xToTrack) {
+        return estimate(unbox(xToTrack));
+    }
+
+    @Override
+    default void estimate(List<Double> xToTrack, double[] out) {
+        estimate(unbox(xToTrack), out);
+    }
+
+    static DoubleArrayList unbox(List<Double> xs) {
+        int n = xs.size();
+        DoubleArrayList unboxed = new DoubleArrayList(n);
+        for (int i = 0; i < n; i++) {
+            unboxed.add(xs.get(i));
+        }
+        return unboxed;
+    }
+}
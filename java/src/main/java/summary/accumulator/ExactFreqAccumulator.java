@@ -1,17 +1,15 @@
 package summary.accumulator;
 
-import org.eclipse.collections.api.list.primitive.DoubleList;
 import org.eclipse.collections.api.list.primitive.LongList;
-import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
 import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
 import summary.CounterLongSketch;
 import summary.DictSketch;
+import summary.PackedCounters;
 import summary.Sketch;
 
 import java.util.Arrays;
-import java.util.List;
 
-public class ExactFreqAccumulator implements Accumulator<Long, LongList> {
+public class ExactFreqAccumulator implements LongAccumulator {
     public long[] trackedItems;
     public double[] trackedWeights;
     public ExactFreqAccumulator() {
@@ -57,17 +55,58 @@ public class ExactFreqAccumulator implements Accumulator<Long, LongList> {
     }
 
     @Override
-    public DoubleList estimate(List<Long> xToTrack) {
+    public void addPacked(PackedCounters packed, int row) {
+        int start = packed.offsets[row];
+        int n = packed.rowSize(row);
+        if (trackedItems == null) {
+            trackedItems = Arrays.copyOfRange(packed.longValues, start, start + n);
+            trackedWeights = new double[n];
+        }
+        double[] weights = packed.weights;
+        for (int i = 0; i < n; i++) {
+            trackedWeights[i] += weights[start + i];
+            if (trackedItems[i] != packed.longValues[start + i]) {
+                throw new RuntimeException("Unequal tracked items");
+            }
+        }
+    }
+
+    @Override
+    public Sketch<Long> toSketch() {
+        if (trackedItems == null) {
+            return new CounterLongSketch(new long[0], new double[0]);
+        }
+        return new CounterLongSketch(trackedItems.clone(), trackedWeights.clone());
+    }
+
+    @Override
+    public void merge(Accumulator<Long, LongList> otherAcc) {
+        ExactFreqAccumulator other = (ExactFreqAccumulator) otherAcc;
+        if (other.trackedItems == null) {
+            return;
+        }
+        if (trackedItems == null) {
+            trackedItems = other.trackedItems;
+            trackedWeights = other.trackedWeights.clone();
+            return;
+        }
+        for (int i = 0; i < trackedWeights.length; i++) {
+            trackedWeights[i] += other.trackedWeights[i];
+        }
+    }
+
+    @Override
+    public void estimate(LongList xToTrack, double[] out) {
         int size = xToTrack.size();
         if (trackedItems == null) {
-            trackedWeights = new double[size];
-            return new DoubleArrayList(trackedWeights);
+            Arrays.fill(out, 0, size, 0.0);
+            return;
         }
         for (int i = 0; i < size; i++) {
             if (xToTrack.get(i) != trackedItems[i]) {
                 throw new RuntimeException("Tracker disagreement");
             }
+            out[i] = trackedWeights[i];
         }
-        return new DoubleArrayList(trackedWeights);
     }
 }
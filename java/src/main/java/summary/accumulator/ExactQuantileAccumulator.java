@@ -2,15 +2,14 @@ package summary.accumulator;
 
 import org.eclipse.collections.api.list.primitive.DoubleList;
 import org.eclipse.collections.api.list.primitive.LongList;
-import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
 import summary.CounterDoubleSketch;
 import summary.CounterLongSketch;
+import summary.PackedCounters;
 import summary.Sketch;
 
-import java.util.List;
 import java.util.Arrays;
 
-public class ExactQuantileAccumulator implements Accumulator<Double, DoubleList> {
+public class ExactQuantileAccumulator implements DoubleAccumulator {
     public double[] trackedItems;
     public double[] trackedWeights;
     public ExactQuantileAccumulator() {
@@ -56,24 +55,61 @@ public class ExactQuantileAccumulator implements Accumulator<Double, DoubleList>
     }
 
     @Override
-    public DoubleList estimate(List<Double> xToTrack) {
-        int nToTrack = xToTrack.size();
-        DoubleArrayList xRanks = new DoubleArrayList(nToTrack);
+    public void addPacked(PackedCounters packed, int row) {
+        int start = packed.offsets[row];
+        int n = packed.rowSize(row);
+        if (trackedItems == null) {
+            trackedItems = Arrays.copyOfRange(packed.doubleValues, start, start + n);
+            trackedWeights = new double[n];
+        }
+        double[] weights = packed.weights;
+        for (int i = 0; i < n; i++) {
+            trackedWeights[i] += weights[start + i];
+            if (trackedItems[i] != packed.doubleValues[start + i]) {
+                throw new RuntimeException("Unequal tracked items");
+            }
+        }
+    }
+
+    @Override
+    public Sketch<Double> toSketch() {
         if (trackedItems == null) {
-            return xRanks;
+            return new CounterDoubleSketch(new double[0], new double[0]);
         }
-        int nStored = trackedItems.length;
+        return new CounterDoubleSketch(trackedItems.clone(), trackedWeights.clone());
+    }
+
+    @Override
+    public void merge(Accumulator<Double, DoubleList> otherAcc) {
+        ExactQuantileAccumulator other = (ExactQuantileAccumulator) otherAcc;
+        if (other.trackedItems == null) {
+            return;
+        }
+        if (trackedItems == null) {
+            trackedItems = other.trackedItems;
+            trackedWeights = other.trackedWeights.clone();
+            return;
+        }
+        for (int i = 0; i < trackedWeights.length; i++) {
+            trackedWeights[i] += other.trackedWeights[i];
+        }
+    }
+
+    @Override
+    public void estimate(DoubleList xToTrack, double[] out) {
+        int nToTrack = xToTrack.size();
+        int nStored = trackedItems == null ? 0 : trackedItems.length;
 
         double curRank = 0.0;
 
         int itemIdx = 0;
-        for (double x : xToTrack) {
+        for (int i = 0; i < nToTrack; i++) {
+            double x = xToTrack.get(i);
             while (itemIdx < nStored && trackedItems[itemIdx] <= x) {
                 curRank += trackedWeights[itemIdx];
                 itemIdx++;
             }
-            xRanks.add(curRank);
+            out[i] = curRank;
         }
-        return xRanks;
     }
 }
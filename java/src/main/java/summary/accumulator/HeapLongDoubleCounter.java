@@ -0,0 +1,142 @@
+package summary.accumulator;
+
+import org.eclipse.collections.api.block.function.primitive.LongDoubleToDoubleFunction;
+import org.eclipse.collections.api.block.procedure.primitive.DoubleProcedure;
+import org.eclipse.collections.api.block.procedure.primitive.LongDoubleProcedure;
+import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
+
+/**
+ * LongDoubleHashMap backed table. Keys 0 and 1 are kept in fields since the
+ * map reallocates their holder after every clear, they are visited first
+ * just like the map does.
+ */
+public class HeapLongDoubleCounter implements LongDoubleCounter {
+    public LongDoubleHashMap map;
+    boolean hasZeroKey;
+    double zeroValue;
+    boolean hasOneKey;
+    double oneValue;
+
+    public HeapLongDoubleCounter() {
+        map = new LongDoubleHashMap();
+    }
+    public HeapLongDoubleCounter(int size) {
+        map = new LongDoubleHashMap(size);
+    }
+    public HeapLongDoubleCounter(LongDoubleHashMap map) {
+        if (map.containsKey(0) || map.containsKey(1)) {
+            // moves keys 0 and 1 out of a copy, leaving the caller's map intact
+            LongDoubleHashMap copy = new LongDoubleHashMap(map);
+            hasZeroKey = copy.containsKey(0);
+            zeroValue = copy.removeKeyIfAbsent(0, 0.0);
+            hasOneKey = copy.containsKey(1);
+            oneValue = copy.removeKeyIfAbsent(1, 0.0);
+            this.map = copy;
+        } else {
+            this.map = map;
+        }
+    }
+
+    @Override
+    public int size() {
+        int n = map.size();
+        if (hasZeroKey) {
+            n++;
+        }
+        if (hasOneKey) {
+            n++;
+        }
+        return n;
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+        hasZeroKey = false;
+        zeroValue = 0;
+        hasOneKey = false;
+        oneValue = 0;
+    }
+
+    @Override
+    public void put(long key, double value) {
+        if (key == 0) {
+            hasZeroKey = true;
+            zeroValue = value;
+        } else if (key == 1) {
+            hasOneKey = true;
+            oneValue = value;
+        } else {
+            map.put(key, value);
+        }
+    }
+
+    @Override
+    public void addToValue(long key, double delta) {
+        if (key == 0) {
+            zeroValue = hasZeroKey ? zeroValue + delta : delta;
+            hasZeroKey = true;
+        } else if (key == 1) {
+            oneValue = hasOneKey ? oneValue + delta : delta;
+            hasOneKey = true;
+        } else {
+            map.addToValue(key, delta);
+        }
+    }
+
+    @Override
+    public double getIfAbsent(long key, double ifAbsent) {
+        if (key == 0) {
+            return hasZeroKey ? zeroValue : ifAbsent;
+        } else if (key == 1) {
+            return hasOneKey ? oneValue : ifAbsent;
+        }
+        return map.getIfAbsent(key, ifAbsent);
+    }
+
+    @Override
+    public void remove(long key) {
+        if (key == 0) {
+            hasZeroKey = false;
+            zeroValue = 0;
+        } else if (key == 1) {
+            hasOneKey = false;
+            oneValue = 0;
+        } else {
+            map.remove(key);
+        }
+    }
+
+    @Override
+    public void forEachKeyValue(LongDoubleProcedure procedure) {
+        if (hasZeroKey) {
+            procedure.value(0, zeroValue);
+        }
+        if (hasOneKey) {
+            procedure.value(1, oneValue);
+        }
+        map.forEachKeyValue(procedure);
+    }
+
+    @Override
+    public void forEachValue(DoubleProcedure procedure) {
+        if (hasZeroKey) {
+            procedure.value(zeroValue);
+        }
+        if (hasOneKey) {
+            procedure.value(oneValue);
+        }
+        map.forEachValue(procedure);
+    }
+
+    @Override
+    public void updateValues(LongDoubleToDoubleFunction function) {
+        if (hasZeroKey) {
+            zeroValue = function.valueOf(0, zeroValue);
+        }
+        if (hasOneKey) {
+            oneValue = function.valueOf(1, oneValue);
+        }
+        map.updateValues(function);
+    }
+}
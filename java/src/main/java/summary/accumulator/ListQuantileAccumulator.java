@@ -4,16 +4,20 @@ import org.eclipse.collections.api.list.primitive.DoubleList;
 import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
 import org.eclipse.collections.impl.map.mutable.primitive.DoubleDoubleHashMap;
 import summary.CounterDoubleSketch;
+import summary.PackedCounters;
 import summary.Sketch;
+import summary.SketchRows;
 
 import java.util.Arrays;
-import java.util.List;
 import java.util.Random;
 
-public class ListQuantileAccumulator implements Accumulator<Double, DoubleList>{
+public class ListQuantileAccumulator implements DoubleAccumulator {
     public DoubleArrayList items;
     public DoubleArrayList weights;
     public Random rng;
+    RadixSort sorter = new RadixSort();
+    double[] weightScratch = new double[0];
+    double[] itemScratch = new double[0];
 
     public ListQuantileAccumulator(int seed) {
         items = new DoubleArrayList();
@@ -90,43 +94,112 @@ public class ListQuantileAccumulator implements Accumulator<Double, DoubleList>{
         weights.addAll(newSketch.weights);
     }
 
+    @Override
+    public void addPacked(PackedCounters packed, int row) {
+        double[] values = packed.doubleValues;
+        double[] packedWeights = packed.weights;
+        int end = packed.offsets[row+1];
+        for (int i = packed.offsets[row]; i < end; i++) {
+            items.add(values[i]);
+            weights.add(packedWeights[i]);
+        }
+    }
+
+    @Override
+    public void addSketches(SketchRows<Double> board, int[] rowIds, int from, int to) {
+        PackedCounters packed = board.getPackedCounters();
+        if (packed == null) {
+            for (int k = from; k < to; k++) {
+                addSketch(board.getSketch(rowIds[k]));
+            }
+            return;
+        }
+        int[] offsets = packed.offsets;
+        int nNew = 0;
+        for (int k = from; k < to; k++) {
+            nNew += packed.rowSize(rowIds[k]);
+        }
+        items.ensureCapacity(items.size() + nNew);
+        weights.ensureCapacity(weights.size() + nNew);
+        double[] values = packed.doubleValues;
+        double[] packedWeights = packed.weights;
+        for (int k = from; k < to; k++) {
+            int row = rowIds[k];
+            int end = offsets[row+1];
+            for (int i = offsets[row]; i < end; i++) {
+                items.add(values[i]);
+                weights.add(packedWeights[i]);
+            }
+        }
+    }
+
     public void reIndex() {
-        int[] sortedIdxs = ArgSort.argSort(items);
         int n = items.size();
-        DoubleArrayList newItems = new DoubleArrayList(n);
-        DoubleArrayList newWeights = new DoubleArrayList(n);
+        if (isIndexed()) {
+            return;
+        }
+        int[] sortedIdxs = sorter.argSort(items);
+        if (weightScratch.length < n) {
+            weightScratch = new double[Math.max(n, 2 * weightScratch.length)];
+            itemScratch = new double[weightScratch.length];
+        }
         for (int i = 0; i < n; i++) {
-            int curIdx = sortedIdxs[i];
-            if (i > 0 && items.get(curIdx) == items.get(sortedIdxs[i-1])) {
-                int lastNewIdx = newWeights.size()-1;
-                newWeights.set(lastNewIdx, newWeights.get(lastNewIdx)+weights.get(curIdx));
+            itemScratch[i] = items.get(sortedIdxs[i]);
+            weightScratch[i] = weights.get(sortedIdxs[i]);
+        }
+        items.clear();
+        weights.clear();
+        for (int i = 0; i < n; i++) {
+            double curItem = itemScratch[i];
+            if (i > 0 && curItem == items.getLast()) {
+                int lastNewIdx = weights.size()-1;
+                weights.set(lastNewIdx, weights.get(lastNewIdx)+weightScratch[i]);
             } else {
-                newItems.add(items.get(curIdx));
-                newWeights.add(weights.get(curIdx));
+                items.add(curItem);
+                weights.add(weightScratch[i]);
+            }
+        }
+    }
+
+    boolean isIndexed() {
+        int n = items.size();
+        for (int i = 1; i < n; i++) {
+            if (items.get(i-1) >= items.get(i)) {
+                return false;
             }
         }
-        items = newItems;
-        weights = newWeights;
+        return true;
     }
 
     @Override
-    public DoubleList estimate(List<Double> xToTrack) {
+    public Sketch<Double> toSketch() {
+        reIndex();
+        return new CounterDoubleSketch(items.toArray(), weights.toArray());
+    }
+
+    @Override
+    public void merge(Accumulator<Double, DoubleList> otherAcc) {
+        ListQuantileAccumulator other = (ListQuantileAccumulator) otherAcc;
+        items.addAll(other.items);
+        weights.addAll(other.weights);
+    }
+
+    @Override
+    public void estimate(DoubleList xToTrack, double[] out) {
         reIndex();
 
         int nToTrack = xToTrack.size();
         int nStored = items.size();
-
-        DoubleArrayList xRanks = new DoubleArrayList(nToTrack);
         double curRank = 0.0;
 
         int itemIdx = 0;
-        for (double x : xToTrack) {
+        for (int i = 0; i < nToTrack; i++) {
+            double x = xToTrack.get(i);
             while (itemIdx < nStored && items.get(itemIdx) <= x) {
                 curRank += weights.get(itemIdx);
                 itemIdx++;
             }
-            xRanks.add(curRank);
+            out[i] = curRank;
         }
-        return xRanks;
     }
 }
@@ -0,0 +1,42 @@
+package summary.accumulator;
+
+import org.eclipse.collections.api.list.primitive.DoubleList;
+import org.eclipse.collections.api.list.primitive.LongList;
+import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+
+import java.util.List;
+
+/**
+ * Accumulator over long items that is probed without boxing.
+ * The List based estimates unbox the items and adapt to the primitive ones.
+ */
+public interface LongAccumulator extends Accumulator<Long, LongList> {
+    @Override
+    void estimate(LongList xToTrack, double[] out);
+
+    default DoubleList estimate(LongList xToTrack) {
+        double[] out = new double[xToTrack.size()];
+        estimate(xToTrack, out);
+        return DoubleArrayList.newListWith(out);
+    }
+
+    @Override
+    default DoubleList estimate(List<Long> xToTrack) {
+        return estimate(unbox(xToTrack));
+    }
+
+    @Override
+    default void estimate(List<Long> xToTrack, double[] out) {
+        estimate(unbox(xToTrack), out);
+    }
+
+    static LongArrayList unbox(List<Long> xs) {
+        int n = xs.size();
+        LongArrayList unboxed = new LongArrayList(n);
+        for (int i = 0; i < n; i++) {
+            unboxed.add(xs.get(i));
+        }
+        return unboxed;
+    }
+}
@@ -0,0 +1,39 @@
+package summary.accumulator;
+
+import org.eclipse.collections.api.block.function.primitive.LongDoubleToDoubleFunction;
+import org.eclipse.collections.api.block.procedure.primitive.DoubleProcedure;
+import org.eclipse.collections.api.block.procedure.primitive.LongDoubleProcedure;
+
+/**
+ * Mutable long to double weight table, implemented on heap by
+ * HeapLongDoubleCounter and off heap by OffHeapLongDoubleCounter.
+ */
+public interface LongDoubleCounter {
+    int size();
+    void clear();
+
+    void put(long key, double value);
+    void addToValue(long key, double delta);
+    double getIfAbsent(long key, double ifAbsent);
+    void remove(long key);
+
+    void forEachKeyValue(LongDoubleProcedure procedure);
+    void forEachValue(DoubleProcedure procedure);
+    void updateValues(LongDoubleToDoubleFunction function);
+
+    default double get(long key) {
+        return getIfAbsent(key, 0.0);
+    }
+
+    default double sum() {
+        double[] total = new double[1];
+        forEachValue((double v) -> total[0] += v);
+        return total[0];
+    }
+
+    /**
+     * Sizes the table to hold n keys without growing.
+     */
+    default void ensureCapacity(int n) {
+    }
+}
@@ -1,23 +1,36 @@
 package summary.accumulator;
 
-import org.eclipse.collections.api.list.primitive.DoubleList;
+import org.eclipse.collections.api.block.procedure.primitive.LongDoubleProcedure;
 import org.eclipse.collections.api.list.primitive.LongList;
-import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
-import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
 import summary.CounterLongSketch;
 import summary.DictSketch;
+import summary.PackedCounters;
 import summary.Sketch;
+import summary.SketchRows;
 
-import java.util.List;
 
-public class MapFreqAccumulator implements Accumulator<Long, LongList> {
-    public LongDoubleHashMap values;
+public class MapFreqAccumulator implements LongAccumulator {
+    // each add reserves room for its items up front, so off-heap tables grow at most once per call
+    public LongDoubleCounter values;
     public double floor = 0;
+    // reused across compress calls, filled in iteration order by gatherEntry
+    double[] weightScratch = new double[0];
+    double[] selectScratch = new double[0];
+    long[] keyScratch = new long[0];
+    int nGathered;
+    final LongDoubleProcedure gatherEntry = (long k, double v) -> {
+        keyScratch[nGathered] = k;
+        weightScratch[nGathered] = v;
+        nGathered++;
+    };
     public MapFreqAccumulator() {
-        values = new LongDoubleHashMap();
+        values = new HeapLongDoubleCounter();
     }
     public MapFreqAccumulator(int size) {
-        values = new LongDoubleHashMap(size);
+        values = new HeapLongDoubleCounter(size);
+    }
+    public MapFreqAccumulator(LongDoubleCounter values) {
+        this.values = values;
     }
 
     @Override
@@ -26,31 +39,52 @@ public class MapFreqAccumulator implements Accumulator<Long, LongList> {
         floor = 0;
     }
 
+    /**
+     * Keeps the newSize heaviest items, shifting their stored weights down by
+     * the cutoff weight and raising the floor by the same amount.
+     */
     @Override
     public int compress(int size) {
         int curSize = values.size();
         if (curSize <= size) {
             return curSize;
-        } else {
-            int newSize = (int)(.7 * size);
-            double[] sortedWeights = values.toSortedArray();
-            double cutoff = sortedWeights[sortedWeights.length - newSize];
-            LongDoubleHashMap newValues = new LongDoubleHashMap(newSize);
-            int[] sizeCounter = new int[1];
-            values.forEachKeyValue((long k, double v) -> {
-                if (v >= cutoff &&  sizeCounter[0] < newSize) {
-                    newValues.put(k, v-cutoff);
-                    sizeCounter[0]++;
-                }
-            });
-            values = newValues;
-            floor = floor + cutoff;
-            return values.size();
         }
+        int newSize = Math.max(1, (int)(.7 * size));
+        if (weightScratch.length < curSize) {
+            weightScratch = new double[curSize];
+            selectScratch = new double[curSize];
+            keyScratch = new long[curSize];
+        }
+        nGathered = 0;
+        values.forEachKeyValue(gatherEntry);
+        double[] curWeights = weightScratch;
+        long[] curKeys = keyScratch;
+        System.arraycopy(curWeights, 0, selectScratch, 0, curSize);
+        double cutoff = QuickSelect.select(selectScratch, 0, curSize, curSize - newSize);
+
+        int nAbove = 0;
+        for (int i = 0; i < curSize; i++) {
+            if (curWeights[i] > cutoff) {
+                nAbove++;
+            }
+        }
+        // ties at the cutoff fill the remaining slots in iteration order
+        int tiesLeft = newSize - nAbove;
+        for (int i = 0; i < curSize; i++) {
+            double v = curWeights[i];
+            if (v < cutoff || (v == cutoff && tiesLeft-- <= 0)) {
+                values.remove(curKeys[i]);
+            } else {
+                values.put(curKeys[i], v - cutoff);
+            }
+        }
+        floor = floor + cutoff;
+        return values.size();
     }
 
     @Override
     public void addRaw(LongList xs) {
+        values.ensureCapacity(values.size() + xs.size());
         for (int i = 0; i < xs.size(); i++) {
             values.addToValue(xs.get(i), 1.0);
         }
@@ -64,6 +98,7 @@ public class MapFreqAccumulator implements Accumulator<Long, LongList> {
         } else if (curObject instanceof CounterLongSketch) {
             CounterLongSketch curSketch = (CounterLongSketch) curObject;
             int n = curSketch.values.length;
+            values.ensureCapacity(values.size() + n);
             long[] vals = curSketch.values;
             double[] weights = curSketch.weights;
             for (int i = 0; i < n; i++) {
@@ -75,14 +110,74 @@ public class MapFreqAccumulator implements Accumulator<Long, LongList> {
     }
 
     @Override
-    public DoubleList estimate(List<Long> xToTrack) {
-        DoubleArrayList xCounts = new DoubleArrayList(xToTrack.size());
+    public void addPacked(PackedCounters packed, int row) {
+        long[] vals = packed.longValues;
+        double[] weights = packed.weights;
+        int end = packed.offsets[row+1];
+        values.ensureCapacity(values.size() + end - packed.offsets[row]);
+        for (int i = packed.offsets[row]; i < end; i++) {
+            values.addToValue(vals[i], weights[i]);
+        }
+    }
+
+    @Override
+    public void addSketches(SketchRows<Long> board, int[] rowIds, int from, int to) {
+        PackedCounters packed = board.getPackedCounters();
+        if (packed == null) {
+            for (int k = from; k < to; k++) {
+                addSketch(board.getSketch(rowIds[k]));
+            }
+            return;
+        }
+        long[] vals = packed.longValues;
+        double[] weights = packed.weights;
+        int[] offsets = packed.offsets;
+        for (int k = from; k < to; k++) {
+            int row = rowIds[k];
+            int end = offsets[row+1];
+            values.ensureCapacity(values.size() + end - offsets[row]);
+            for (int i = offsets[row]; i < end; i++) {
+                values.addToValue(vals[i], weights[i]);
+            }
+        }
+    }
+
+    @Override
+    public Sketch<Long> toSketch() {
+        int n = values.size();
+        long[] items = new long[n];
+        double[] weights = new double[n];
+        int[] idx = new int[1];
+        values.forEachKeyValue((long k, double v) -> {
+            items[idx[0]] = k;
+            weights[idx[0]] = v + floor;
+            idx[0]++;
+        });
+        return new CounterLongSketch(items, weights).sortValues();
+    }
+
+    @Override
+    public void merge(Accumulator<Long, LongList> otherAcc) {
+        MapFreqAccumulator other = (MapFreqAccumulator) otherAcc;
+        if (floor != 0) {
+            double curFloor = floor;
+            values.updateValues((long k, double v) -> v + curFloor);
+            floor = 0;
+        }
+        double otherFloor = other.floor;
+        values.ensureCapacity(values.size() + other.values.size());
+        other.values.forEachKeyValue((long k, double v) -> {
+            values.addToValue(k, v + otherFloor);
+        });
+    }
+
+    @Override
+    public void estimate(LongList xToTrack, double[] out) {
         int size = xToTrack.size();
         for (int i = 0; i < size; i++) {
             long aLong = xToTrack.get(i);
-            xCounts.add(values.getIfAbsent(aLong, -floor)+floor);
+            out[i] = values.getIfAbsent(aLong, -floor)+floor;
         }
-        return xCounts;
     }
 
     private void addTovalue(long x, double v) {
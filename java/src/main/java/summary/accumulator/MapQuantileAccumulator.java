@@ -1,14 +1,14 @@
 package summary.accumulator;
 
 import org.eclipse.collections.api.list.primitive.DoubleList;
-import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
 import org.eclipse.collections.impl.map.mutable.primitive.DoubleDoubleHashMap;
 import summary.CounterDoubleSketch;
+import summary.PackedCounters;
 import summary.Sketch;
+import summary.SketchRows;
 
-import java.util.List;
 
-public class MapQuantileAccumulator implements Accumulator<Double, DoubleList>{
+public class MapQuantileAccumulator implements DoubleAccumulator {
     public DoubleDoubleHashMap itemWeights;
     public double[] sortedItems;
 
@@ -50,24 +50,76 @@ public class MapQuantileAccumulator implements Accumulator<Double, DoubleList>{
     }
 
     @Override
-    public DoubleList estimate(List<Double> xToTrack) {
+    public void addPacked(PackedCounters packed, int row) {
+        double[] values = packed.doubleValues;
+        double[] weights = packed.weights;
+        int end = packed.offsets[row+1];
+        for (int i = packed.offsets[row]; i < end; i++) {
+            itemWeights.addToValue(values[i], weights[i]);
+        }
+        invalidateIndex();
+    }
+
+    @Override
+    public void addSketches(SketchRows<Double> board, int[] rowIds, int from, int to) {
+        PackedCounters packed = board.getPackedCounters();
+        if (packed == null) {
+            for (int k = from; k < to; k++) {
+                addSketch(board.getSketch(rowIds[k]));
+            }
+            return;
+        }
+        double[] values = packed.doubleValues;
+        double[] weights = packed.weights;
+        int[] offsets = packed.offsets;
+        for (int k = from; k < to; k++) {
+            int row = rowIds[k];
+            int end = offsets[row+1];
+            for (int i = offsets[row]; i < end; i++) {
+                itemWeights.addToValue(values[i], weights[i]);
+            }
+        }
+        invalidateIndex();
+    }
+
+    @Override
+    public Sketch<Double> toSketch() {
+        if (sortedItems == null) {
+            reIndex();
+        }
+        int n = sortedItems.length;
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            weights[i] = itemWeights.get(sortedItems[i]);
+        }
+        return new CounterDoubleSketch(sortedItems.clone(), weights);
+    }
+
+    @Override
+    public void merge(Accumulator<Double, DoubleList> otherAcc) {
+        MapQuantileAccumulator other = (MapQuantileAccumulator) otherAcc;
+        other.itemWeights.forEachKeyValue(this::addItemWeight);
+        invalidateIndex();
+    }
+
+    @Override
+    public void estimate(DoubleList xToTrack, double[] out) {
         if (sortedItems == null) {
             reIndex();
         }
         int n = xToTrack.size();
         int nStored = sortedItems.length;
-        DoubleArrayList xRanks = new DoubleArrayList(n);
         double curRank = 0.0;
 
         int itemIdx = 0;
-        for (double x : xToTrack) {
+        for (int i = 0; i < n; i++) {
+            double x = xToTrack.get(i);
             while (itemIdx < nStored && sortedItems[itemIdx] <= x) {
                 curRank += itemWeights.get(sortedItems[itemIdx]);
                 itemIdx++;
             }
-            xRanks.add(curRank);
+            out[i] = curRank;
         }
-        return xRanks;
     }
 
     public void reIndex() {
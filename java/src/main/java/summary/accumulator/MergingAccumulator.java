@@ -46,6 +46,19 @@ public class MergingAccumulator<T, TL extends PrimitiveIterable> implements Accu
         merged.merge(newSketch);
     }
 
+    @Override
+    public Sketch<T> toSketch() {
+        return merged;
+    }
+
+    @Override
+    public void merge(Accumulator<T, TL> otherAcc) {
+        MergingAccumulator<T, TL> other = (MergingAccumulator<T, TL>) otherAcc;
+        if (other.merged != null) {
+            addSketch(other.merged);
+        }
+    }
+
     @Override
     public DoubleList estimate(List<T> xToTrack) {
         int n = xToTrack.size();
@@ -0,0 +1,265 @@
+package summary.accumulator;
+
+import org.eclipse.collections.api.block.function.primitive.LongDoubleToDoubleFunction;
+import org.eclipse.collections.api.block.procedure.primitive.DoubleProcedure;
+import org.eclipse.collections.api.block.procedure.primitive.LongDoubleProcedure;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Linear probing long to double table stored in a direct ByteBuffer, so large
+ * tables add no objects to the heap. Each slot holds a key followed by its
+ * value; key 0 marks an empty slot and is kept in a separate field.
+ * Tables grow by doubling, which ensureCapacity avoids when the number of keys
+ * is known up front, and clear zeroes the slots without reallocating.
+ */
+public class OffHeapLongDoubleCounter implements LongDoubleCounter {
+    static final int SLOT_BYTES = 16;
+    static final int MIN_CAPACITY = 16;
+    // largest power of two whose slots fit in one ByteBuffer
+    static final int MAX_CAPACITY = 1 << 26;
+    static final long EMPTY = 0;
+
+    ByteBuffer table;
+    int capacity;
+    int mask;
+    int shift;
+    int maxSize;
+    int size;
+    boolean hasZeroKey;
+    double zeroValue;
+
+    public OffHeapLongDoubleCounter() {
+        this(MIN_CAPACITY / 2);
+    }
+    public OffHeapLongDoubleCounter(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * @return number of slots needed to hold n keys at a load factor of 1/2
+     */
+    static int capacityFor(int n) {
+        int c = MIN_CAPACITY;
+        while (c / 2 < n) {
+            if (c == MAX_CAPACITY) {
+                throw new RuntimeException("Off-heap counter cannot hold "+n+" keys");
+            }
+            c <<= 1;
+        }
+        return c;
+    }
+
+    void allocate(int newCapacity) {
+        table = ByteBuffer.allocateDirect(newCapacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+        capacity = newCapacity;
+        mask = newCapacity - 1;
+        shift = 64 - Integer.numberOfTrailingZeros(newCapacity);
+        maxSize = newCapacity / 2;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    int slot(long key) {
+        return (int) ((key * 0x9E3779B97F4A7C15L) >>> shift);
+    }
+
+    /**
+     * @return slot holding key, or -1
+     */
+    int find(long key) {
+        int i = slot(key);
+        while (true) {
+            long k = table.getLong(i * SLOT_BYTES);
+            if (k == key) {
+                return i;
+            }
+            if (k == EMPTY) {
+                return -1;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    @Override
+    public int size() {
+        return hasZeroKey ? size + 1 : size;
+    }
+
+    @Override
+    public void clear() {
+        if (size > 0) {
+            for (int i = 0; i < capacity; i++) {
+                table.putLong(i * SLOT_BYTES, EMPTY);
+            }
+        }
+        size = 0;
+        hasZeroKey = false;
+        zeroValue = 0;
+    }
+
+    @Override
+    public void ensureCapacity(int n) {
+        if (n <= maxSize) {
+            return;
+        }
+        rehash(capacityFor(n));
+    }
+
+    void rehash(int newCapacity) {
+        ByteBuffer oldTable = table;
+        int oldCapacity = capacity;
+        allocate(newCapacity);
+        for (int i = 0; i < oldCapacity; i++) {
+            long k = oldTable.getLong(i * SLOT_BYTES);
+            if (k != EMPTY) {
+                int j = slot(k);
+                while (table.getLong(j * SLOT_BYTES) != EMPTY) {
+                    j = (j + 1) & mask;
+                }
+                table.putLong(j * SLOT_BYTES, k);
+                table.putDouble(j * SLOT_BYTES + 8, oldTable.getDouble(i * SLOT_BYTES + 8));
+            }
+        }
+    }
+
+    @Override
+    public void put(long key, double value) {
+        if (key == EMPTY) {
+            hasZeroKey = true;
+            zeroValue = value;
+            return;
+        }
+        int i = slot(key);
+        while (true) {
+            int offset = i * SLOT_BYTES;
+            long k = table.getLong(offset);
+            if (k == key) {
+                table.putDouble(offset + 8, value);
+                return;
+            }
+            if (k == EMPTY) {
+                insertAt(offset, key, value);
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    @Override
+    public void addToValue(long key, double delta) {
+        if (key == EMPTY) {
+            zeroValue = hasZeroKey ? zeroValue + delta : delta;
+            hasZeroKey = true;
+            return;
+        }
+        int i = slot(key);
+        while (true) {
+            int offset = i * SLOT_BYTES;
+            long k = table.getLong(offset);
+            if (k == key) {
+                table.putDouble(offset + 8, table.getDouble(offset + 8) + delta);
+                return;
+            }
+            if (k == EMPTY) {
+                insertAt(offset, key, delta);
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+    }
+
+    void insertAt(int offset, long key, double value) {
+        table.putLong(offset, key);
+        table.putDouble(offset + 8, value);
+        size++;
+        if (size > maxSize) {
+            // capacityFor fails cleanly past MAX_CAPACITY instead of overflowing the byte size
+            rehash(capacityFor(size));
+        }
+    }
+
+    @Override
+    public double getIfAbsent(long key, double ifAbsent) {
+        if (key == EMPTY) {
+            return hasZeroKey ? zeroValue : ifAbsent;
+        }
+        int i = find(key);
+        return i < 0 ? ifAbsent : table.getDouble(i * SLOT_BYTES + 8);
+    }
+
+    /**
+     * Removes key and shifts the rest of its probe run back so lookups never
+     * need tombstones.
+     */
+    @Override
+    public void remove(long key) {
+        if (key == EMPTY) {
+            hasZeroKey = false;
+            zeroValue = 0;
+            return;
+        }
+        int hole = find(key);
+        if (hole < 0) {
+            return;
+        }
+        size--;
+        int j = hole;
+        while (true) {
+            j = (j + 1) & mask;
+            long k = table.getLong(j * SLOT_BYTES);
+            if (k == EMPTY) {
+                break;
+            }
+            int home = slot(k);
+            if (((j - home) & mask) >= ((j - hole) & mask)) {
+                table.putLong(hole * SLOT_BYTES, k);
+                table.putDouble(hole * SLOT_BYTES + 8, table.getDouble(j * SLOT_BYTES + 8));
+                hole = j;
+            }
+        }
+        table.putLong(hole * SLOT_BYTES, EMPTY);
+    }
+
+    @Override
+    public void forEachKeyValue(LongDoubleProcedure procedure) {
+        if (hasZeroKey) {
+            procedure.value(EMPTY, zeroValue);
+        }
+        for (int i = 0; i < capacity; i++) {
+            long k = table.getLong(i * SLOT_BYTES);
+            if (k != EMPTY) {
+                procedure.value(k, table.getDouble(i * SLOT_BYTES + 8));
+            }
+        }
+    }
+
+    @Override
+    public void forEachValue(DoubleProcedure procedure) {
+        if (hasZeroKey) {
+            procedure.value(zeroValue);
+        }
+        for (int i = 0; i < capacity; i++) {
+            if (table.getLong(i * SLOT_BYTES) != EMPTY) {
+                procedure.value(table.getDouble(i * SLOT_BYTES + 8));
+            }
+        }
+    }
+
+    @Override
+    public void updateValues(LongDoubleToDoubleFunction function) {
+        if (hasZeroKey) {
+            zeroValue = function.valueOf(EMPTY, zeroValue);
+        }
+        for (int i = 0; i < capacity; i++) {
+            int offset = i * SLOT_BYTES;
+            long k = table.getLong(offset);
+            if (k != EMPTY) {
+                table.putDouble(offset + 8, function.valueOf(k, table.getDouble(offset + 8)));
+            }
+        }
+    }
+}
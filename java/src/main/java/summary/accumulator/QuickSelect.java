@@ -0,0 +1,49 @@
+package summary.accumulator;
+
+public class QuickSelect {
+    /**
+     * Partially reorders xs[from, to) in place so that xs[k] holds the value
+     * it would have after sorting.
+     * @return the value of rank k
+     */
+    public static double select(double[] xs, int from, int to, int k) {
+        int lo = from;
+        int hi = to - 1;
+        while (lo < hi) {
+            double pivot = medianOfThree(xs[lo], xs[(lo + hi) >>> 1], xs[hi]);
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (xs[i] < pivot) {
+                    i++;
+                }
+                while (xs[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    double tmp = xs[i];
+                    xs[i] = xs[j];
+                    xs[j] = tmp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                hi = j;
+            } else if (k >= i) {
+                lo = i;
+            } else {
+                return xs[k];
+            }
+        }
+        return xs[k];
+    }
+
+    static double medianOfThree(double a, double b, double c) {
+        if (a < b) {
+            return b < c ? b : Math.max(a, c);
+        } else {
+            return a < c ? a : Math.max(b, c);
+        }
+    }
+}
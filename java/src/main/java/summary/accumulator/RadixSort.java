@@ -0,0 +1,140 @@
+package summary.accumulator;
+
+import org.eclipse.collections.api.list.primitive.DoubleList;
+
+import java.util.Arrays;
+
+/**
+ * Stable LSD radix sort on the IEEE-754 bit patterns of doubles.
+ * Buffers are kept between calls so repeated sorts do not allocate once
+ * they have grown to the largest input seen.
+ */
+public class RadixSort {
+    static final int INSERTION_SORT_MAX = 32;
+    static final int DIGIT_BITS = 11;
+    static final int RADIX = 1 << DIGIT_BITS;
+    static final int PASSES = (64 + DIGIT_BITS - 1) / DIGIT_BITS;
+
+    public int[] order;
+    long[] keys;
+    long[] keysTmp;
+    int[] orderTmp;
+    int[] counts;
+
+    public RadixSort() {
+        order = new int[0];
+        keys = new long[0];
+        keysTmp = new long[0];
+        orderTmp = new int[0];
+        counts = new int[PASSES * RADIX];
+    }
+
+    /**
+     * @return buffer whose first xs.size() entries are the indices of xs in
+     * ascending order of value, ties kept in input order
+     */
+    public int[] argSort(DoubleList xs) {
+        int n = xs.size();
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            keys[i] = toKey(xs.get(i));
+            order[i] = i;
+        }
+        sortKeys(n);
+        return order;
+    }
+
+    public int[] argSort(double[] xs, int n) {
+        ensureCapacity(n);
+        for (int i = 0; i < n; i++) {
+            keys[i] = toKey(xs[i]);
+            order[i] = i;
+        }
+        sortKeys(n);
+        return order;
+    }
+
+    /**
+     * @return value of rank i from the last sort, with -0.0 read back as 0.0
+     */
+    public double sortedValue(int i) {
+        return fromKey(keys[i]);
+    }
+
+    void ensureCapacity(int n) {
+        if (keys.length < n) {
+            int newLength = Math.max(n, 2 * keys.length);
+            keys = new long[newLength];
+            keysTmp = new long[newLength];
+            order = new int[newLength];
+            orderTmp = new int[newLength];
+        }
+    }
+
+    static long toKey(double x) {
+        // adding 0.0 folds -0.0 into 0.0 so the two tie, as they do under <
+        long bits = Double.doubleToRawLongBits(x + 0.0);
+        return bits ^ ((bits >> 63) | Long.MIN_VALUE);
+    }
+
+    static double fromKey(long key) {
+        return Double.longBitsToDouble(key ^ ((~key >> 63) | Long.MIN_VALUE));
+    }
+
+    void sortKeys(int n) {
+        if (n <= INSERTION_SORT_MAX) {
+            insertionSort(n);
+            return;
+        }
+        Arrays.fill(counts, 0);
+        for (int i = 0; i < n; i++) {
+            long key = keys[i];
+            for (int p = 0; p < PASSES; p++) {
+                counts[p * RADIX + digit(key, p)]++;
+            }
+        }
+        for (int p = 0; p < PASSES; p++) {
+            int base = p * RADIX;
+            if (counts[base + digit(keys[0], p)] == n) {
+                continue;
+            }
+            int total = 0;
+            for (int d = 0; d < RADIX; d++) {
+                int c = counts[base + d];
+                counts[base + d] = total;
+                total += c;
+            }
+            for (int i = 0; i < n; i++) {
+                long key = keys[i];
+                int dest = counts[base + digit(key, p)]++;
+                keysTmp[dest] = key;
+                orderTmp[dest] = order[i];
+            }
+            long[] tmpKeys = keys;
+            keys = keysTmp;
+            keysTmp = tmpKeys;
+            int[] tmpOrder = order;
+            order = orderTmp;
+            orderTmp = tmpOrder;
+        }
+    }
+
+    static int digit(long key, int pass) {
+        return (int) (key >>> (pass * DIGIT_BITS)) & (RADIX - 1);
+    }
+
+    void insertionSort(int n) {
+        for (int i = 1; i < n; i++) {
+            long key = keys[i];
+            int idx = order[i];
+            int j = i - 1;
+            while (j >= 0 && Long.compareUnsigned(keys[j], key) > 0) {
+                keys[j + 1] = keys[j];
+                order[j + 1] = order[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            order[j + 1] = idx;
+        }
+    }
+}
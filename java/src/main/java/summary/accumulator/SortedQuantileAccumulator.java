@@ -3,15 +3,27 @@ package summary.accumulator;
 import org.eclipse.collections.api.list.primitive.DoubleList;
 import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
 import summary.CounterDoubleSketch;
+import summary.PackedCounters;
 import summary.Sketch;
+import summary.SketchRows;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
-public class SortedQuantileAccumulator implements Accumulator<Double, DoubleList> {
+public class SortedQuantileAccumulator implements DoubleAccumulator {
     public DoubleArrayList items;
     public DoubleArrayList weights;
     public Random rng;
+    // merge destinations, swapped with items / weights after every merge
+    DoubleArrayList spareItems = new DoubleArrayList();
+    DoubleArrayList spareWeights = new DoubleArrayList();
+    // k-way merge state, reused across batches
+    double[][] runValues = new double[0][];
+    double[][] runWeights = new double[0][];
+    int[] runPos = new int[0];
+    int[] runEnd = new int[0];
+    int[] heap = new int[0];
     public SortedQuantileAccumulator() {
         items = new DoubleArrayList();
         weights = new DoubleArrayList();
@@ -54,29 +66,188 @@ public class SortedQuantileAccumulator implements Accumulator<Double, DoubleList
         add(new DoubleArrayList(values), new DoubleArrayList(weights));
     }
 
+    /**
+     * Merges all sketches and the stored items in one k-way heap merge.
+     * Each sketch must hold its values in ascending order.
+     */
     @Override
-    public DoubleList estimate(List<Double> xToTrack) {
+    public void addSketches(List<Sketch<Double>> newSketches) {
+        int nRuns = newSketches.size() + 1;
+        ensureRuns(nRuns);
+        for (int r = 1; r < nRuns; r++) {
+            CounterDoubleSketch sketch = (CounterDoubleSketch) newSketches.get(r - 1);
+            assert isAscending(sketch.values, 0, sketch.values.length) : "unsorted sketch: "+sketch;
+            runValues[r] = sketch.values;
+            runWeights[r] = sketch.weights;
+            runPos[r] = 0;
+            runEnd[r] = sketch.values.length;
+        }
+        mergeRuns(nRuns);
+    }
+
+    /**
+     * Packed rows are merged straight out of the packed arrays.
+     */
+    @Override
+    public void addSketches(SketchRows<Double> board, int[] rowIds, int from, int to) {
+        PackedCounters packed = board.getPackedCounters();
+        if (packed == null) {
+            DoubleAccumulator.super.addSketches(board, rowIds, from, to);
+            return;
+        }
+        int nRuns = to - from + 1;
+        ensureRuns(nRuns);
+        for (int r = 1; r < nRuns; r++) {
+            int row = rowIds[from + r - 1];
+            runValues[r] = packed.doubleValues;
+            runWeights[r] = packed.weights;
+            runPos[r] = packed.offsets[row];
+            runEnd[r] = packed.offsets[row + 1];
+            assert isAscending(packed.doubleValues, runPos[r], runEnd[r]) : "unsorted row: "+row;
+        }
+        mergeRuns(nRuns);
+    }
+
+    static boolean isAscending(double[] values, int start, int end) {
+        for (int i = start + 1; i < end; i++) {
+            if (values[i - 1] > values[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    void ensureRuns(int nRuns) {
+        if (runPos.length < nRuns) {
+            int newLength = Math.max(nRuns, 2 * runPos.length);
+            runValues = new double[newLength][];
+            runWeights = new double[newLength][];
+            runPos = new int[newLength];
+            runEnd = new int[newLength];
+            heap = new int[newLength];
+        }
+    }
+
+    /**
+     * Run 0 is the stored items, read in place, runs [1, nRuns) come from
+     * runValues / runWeights.
+     */
+    void mergeRuns(int nRuns) {
+        runPos[0] = 0;
+        runEnd[0] = items.size();
+        int nTotal = 0;
+        int heapSize = 0;
+        for (int r = 0; r < nRuns; r++) {
+            if (runPos[r] < runEnd[r]) {
+                heap[heapSize++] = r;
+                nTotal += runEnd[r] - runPos[r];
+            }
+        }
+        for (int i = heapSize / 2 - 1; i >= 0; i--) {
+            siftDown(heapSize, i);
+        }
+
+        DoubleArrayList newItems = spareItems;
+        DoubleArrayList newWeights = spareWeights;
+        newItems.clear();
+        newWeights.clear();
+        newItems.ensureCapacity(nTotal);
+        newWeights.ensureCapacity(nTotal);
+        while (heapSize > 0) {
+            int r = heap[0];
+            int pos = runPos[r];
+            double nextItem = headValue(r);
+            double nextWeight = r == 0 ? weights.get(pos) : runWeights[r][pos];
+            int lastAddedIdx = newItems.size() - 1;
+            if (lastAddedIdx >= 0 && newItems.get(lastAddedIdx) == nextItem) {
+                newWeights.set(lastAddedIdx, newWeights.get(lastAddedIdx) + nextWeight);
+            } else {
+                newItems.add(nextItem);
+                newWeights.add(nextWeight);
+            }
+            runPos[r]++;
+            if (runPos[r] >= runEnd[r]) {
+                heap[0] = heap[--heapSize];
+            }
+            siftDown(heapSize, 0);
+        }
+        // drop references to the merged sketches
+        Arrays.fill(runValues, 0, nRuns, null);
+        Arrays.fill(runWeights, 0, nRuns, null);
+        swapBuffers();
+    }
+
+    void siftDown(int heapSize, int i) {
+        while (true) {
+            int smallest = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < heapSize && headValue(heap[left]) < headValue(heap[smallest])) {
+                smallest = left;
+            }
+            if (right < heapSize && headValue(heap[right]) < headValue(heap[smallest])) {
+                smallest = right;
+            }
+            if (smallest == i) {
+                return;
+            }
+            int tmp = heap[i];
+            heap[i] = heap[smallest];
+            heap[smallest] = tmp;
+            i = smallest;
+        }
+    }
+
+    double headValue(int r) {
+        return r == 0 ? items.get(runPos[0]) : runValues[r][runPos[r]];
+    }
+
+    void swapBuffers() {
+        DoubleArrayList oldItems = items;
+        DoubleArrayList oldWeights = weights;
+        items = spareItems;
+        weights = spareWeights;
+        spareItems = oldItems;
+        spareWeights = oldWeights;
+    }
+
+    @Override
+    public Sketch<Double> toSketch() {
+        return new CounterDoubleSketch(items.toArray(), weights.toArray());
+    }
+
+    @Override
+    public void merge(Accumulator<Double, DoubleList> otherAcc) {
+        SortedQuantileAccumulator other = (SortedQuantileAccumulator) otherAcc;
+        add(other.items, other.weights);
+    }
+
+    @Override
+    public void estimate(DoubleList xToTrack, double[] out) {
         int n = xToTrack.size();
         int nStored = items.size();
-        DoubleArrayList xRanks = new DoubleArrayList(n);
         double curRank = 0.0;
 
         int itemIdx = 0;
-        for (double x : xToTrack) {
+        for (int i = 0; i < n; i++) {
+            double x = xToTrack.get(i);
             while (itemIdx < nStored && items.get(itemIdx) <= x) {
                 curRank += weights.get(itemIdx);
                 itemIdx++;
             }
-            xRanks.add(curRank);
+            out[i] = curRank;
         }
-        return xRanks;
     }
 
     public void add(DoubleList xs, DoubleList segWeights) {
         int n = xs.size();
         int nStored = items.size();
-        DoubleArrayList newItems = new DoubleArrayList(nStored + n);
-        DoubleArrayList newWeights = new DoubleArrayList(nStored + n);
+        DoubleArrayList newItems = spareItems;
+        DoubleArrayList newWeights = spareWeights;
+        newItems.clear();
+        newWeights.clear();
+        newItems.ensureCapacity(nStored + n);
+        newWeights.ensureCapacity(nStored + n);
 
         int storedIdx = 0;
         int itemIdx = 0;
@@ -123,8 +294,7 @@ public class SortedQuantileAccumulator implements Accumulator<Double, DoubleList
             }
         }
 
-        items = newItems;
-        weights = newWeights;
+        swapBuffers();
     }
 
     public double[] calcDelta(SortedQuantileAccumulator other) {
@@ -1,24 +1,38 @@
 package summary.compressor.freq;
 
 import org.eclipse.collections.api.list.MutableList;
-import org.eclipse.collections.api.list.primitive.DoubleList;
 import org.eclipse.collections.api.tuple.primitive.LongDoublePair;
 import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
 import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
-import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
 import org.eclipse.collections.impl.tuple.primitive.PrimitiveTuples;
 import summary.CounterLongSketch;
-import summary.accumulator.ArgSort;
+import summary.accumulator.HeapLongDoubleCounter;
+import summary.accumulator.LongDoubleCounter;
+import summary.accumulator.QuickSelect;
+import summary.accumulator.RadixSort;
 
 public class CoopFreqCompressor implements ItemCounterCompressor {
-    LongDoubleHashMap deltas;
+    LongDoubleCounter deltas;
     int interval_len;
     int cur_idx;
+    RadixSort sorter;
+    // reused across compress calls
+    double[] countScratch = new double[0];
+    double[] negDeltaScratch = new double[0];
+    long[] deltaXScratch = new long[0];
 
     public CoopFreqCompressor(int interval_len) {
+        this(interval_len, new HeapLongDoubleCounter());
+    }
+
+    /**
+     * @param deltas empty table that carries the unstored weight between calls
+     */
+    public CoopFreqCompressor(int interval_len, LongDoubleCounter deltas) {
         this.interval_len = interval_len;
         cur_idx = 0;
-        deltas = new LongDoubleHashMap();
+        this.deltas = deltas;
+        sorter = new RadixSort();
     }
 
     public void reset() {
@@ -27,38 +41,58 @@ public class CoopFreqCompressor implements ItemCounterCompressor {
     }
 
     @Override
-    public CounterLongSketch compress(LongDoubleHashMap xs, int size) {
-        DoubleList counts = xs.values().toSortedList().reverseThis();
-        double t = ItemCountsUtil.find_t(counts, size);
+    public CounterLongSketch compress(LongDoubleCounter xs, int size) {
+        int nCounts = xs.size();
+        if (countScratch.length < nCounts) {
+            countScratch = new double[nCounts];
+        }
+        double[] counts = countScratch;
+        int[] idx = new int[1];
+        xs.forEachValue((double v) -> {
+            counts[idx[0]++] = v;
+        });
+        double t = ItemCountsUtil.find_t(counts, nCounts, size);
         LongArrayList itemsToStore = new LongArrayList(size);
         DoubleArrayList weightsToStore = new DoubleArrayList(size);
 
-        DoubleArrayList deltaList = new DoubleArrayList(xs.size());
-        LongArrayList xList = new LongArrayList(xs.size());
+        if (negDeltaScratch.length < nCounts) {
+            negDeltaScratch = new double[nCounts];
+            deltaXScratch = new long[nCounts];
+        }
+        double[] negDeltas = negDeltaScratch;
+        long[] deltaXs = deltaXScratch;
+        int[] nDeltasRef = new int[1];
         xs.forEachKeyValue((long curX, double curVal) -> {
             if (curVal >= t) {
                 itemsToStore.add(curX);
                 weightsToStore.add(curVal);
             } else {
                 deltas.addToValue(curX, curVal);
-                deltaList.add(-deltas.get(curX));
-                xList.add(curX);
+                negDeltas[nDeltasRef[0]] = -deltas.get(curX);
+                deltaXs[nDeltasRef[0]] = curX;
+                nDeltasRef[0]++;
             }
         });
-        int[] deltaOrdering = ArgSort.argSort(deltaList);
-        for (int orderedIdx : deltaOrdering) {
-            if (itemsToStore.size() >= size) {
-                break;
+        int nDeltas = nDeltasRef[0];
+        int nToStore = Math.min(size - itemsToStore.size(), nDeltas);
+        if (nToStore > 0) {
+            if (nToStore < nDeltas) {
+                // counts is free again after find_t
+                keepSmallest(negDeltas, deltaXs, nDeltas, nToStore, counts);
             }
-            long curX = xList.get(orderedIdx);
-            double amtToStore = -deltaList.get(orderedIdx);
-            if (amtToStore > t) {
-                amtToStore = t;
+            int[] deltaOrdering = sorter.argSort(negDeltas, nToStore);
+            for (int i = 0; i < nToStore; i++) {
+                int orderedIdx = deltaOrdering[i];
+                long curX = deltaXs[orderedIdx];
+                double amtToStore = -negDeltas[orderedIdx];
+                if (amtToStore > t) {
+                    amtToStore = t;
+                }
+                assert (amtToStore >= 0);
+                itemsToStore.add(curX);
+                weightsToStore.add(amtToStore);
+                deltas.addToValue(curX, -amtToStore);
             }
-            assert (amtToStore >= 0);
-            itemsToStore.add(curX);
-            weightsToStore.add(amtToStore);
-            deltas.addToValue(curX, -amtToStore);
         }
 
         cur_idx += 1;
@@ -66,6 +100,30 @@ public class CoopFreqCompressor implements ItemCounterCompressor {
             reset();
         }
 
-        return new CounterLongSketch(itemsToStore.toArray(), weightsToStore.toArray());
+        return new CounterLongSketch(itemsToStore.toArray(), weightsToStore.toArray()).sortValues();
+    }
+
+    /**
+     * Moves the k smallest of vals[0, n) to the front along with their items,
+     * keeping input order so ties resolve as in a stable sort of all n.
+     */
+    static void keepSmallest(double[] vals, long[] items, int n, int k, double[] scratch) {
+        System.arraycopy(vals, 0, scratch, 0, n);
+        double cutoff = QuickSelect.select(scratch, 0, n, k - 1);
+        int tiesLeft = k;
+        for (int i = 0; i < n; i++) {
+            if (vals[i] < cutoff) {
+                tiesLeft--;
+            }
+        }
+        int kept = 0;
+        for (int i = 0; i < n && kept < k; i++) {
+            double v = vals[i];
+            if (v < cutoff || (v == cutoff && tiesLeft-- > 0)) {
+                vals[kept] = v;
+                items[kept] = items[i];
+                kept++;
+            }
+        }
     }
 }
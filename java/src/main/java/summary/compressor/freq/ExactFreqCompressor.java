@@ -1,11 +1,16 @@
 package summary.compressor.freq;
 
-import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
 import summary.CounterLongSketch;
+import summary.accumulator.LongDoubleCounter;
 
 public class ExactFreqCompressor implements ItemCounterCompressor {
     @Override
-    public CounterLongSketch compress(LongDoubleHashMap xs, int size) {
+    public CounterLongSketch compress(LongDoubleCounter xs, int size) {
         return CounterLongSketch.fromMap(xs);
     }
+
+    @Override
+    public boolean isStateless() {
+        return true;
+    }
 }
@@ -1,23 +1,33 @@
 package summary.compressor.freq;
 
-import org.eclipse.collections.api.list.primitive.DoubleList;
 import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
 import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
 import summary.CounterLongSketch;
+import summary.accumulator.LongDoubleCounter;
 
 import java.util.Random;
 
 public class HaircombCompressor implements ItemCounterCompressor {
     Random random;
+    // reused across compress calls
+    double[] countScratch = new double[0];
     public HaircombCompressor(int seed) {
         random = new Random(seed);
     }
 
     @Override
-    public CounterLongSketch compress(LongDoubleHashMap xs, int size) {
-        DoubleList counts = xs.values().toSortedList().reverseThis();
-        double t = ItemCountsUtil.find_t(counts, size);
+    public CounterLongSketch compress(LongDoubleCounter xs, int size) {
+        int nCounts = xs.size();
+        if (countScratch.length < nCounts) {
+            countScratch = new double[nCounts];
+        }
+        double[] counts = countScratch;
+        int[] idx = new int[1];
+        xs.forEachValue((double v) -> {
+            counts[idx[0]++] = v;
+        });
+        double t = ItemCountsUtil.find_t(counts, nCounts, size);
 //        LongDoubleHashMap itemsToStore = new LongDoubleHashMap(size);
         LongArrayList itemsToStore = new LongArrayList(size);
         DoubleArrayList weightsToStore = new DoubleArrayList(size);
@@ -49,6 +59,6 @@ public class HaircombCompressor implements ItemCounterCompressor {
             }
         }
 
-        return new CounterLongSketch(itemsToStore.toArray(), weightsToStore.toArray());
+        return new CounterLongSketch(itemsToStore.toArray(), weightsToStore.toArray()).sortValues();
     }
 }
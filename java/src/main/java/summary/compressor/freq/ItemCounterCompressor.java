@@ -3,8 +3,22 @@ package summary.compressor.freq;
 import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
 import summary.CounterLongSketch;
+import summary.accumulator.HeapLongDoubleCounter;
+import summary.accumulator.LongDoubleCounter;
 
 
 public interface ItemCounterCompressor {
-    CounterLongSketch compress(LongDoubleHashMap xs, int size);
+    CounterLongSketch compress(LongDoubleCounter xs, int size);
+
+    /**
+     * @return true when compress keeps no state between calls, so segments
+     * may be compressed concurrently and in any order
+     */
+    default boolean isStateless() {
+        return false;
+    }
+
+    default CounterLongSketch compress(LongDoubleHashMap xs, int size) {
+        return compress(new HeapLongDoubleCounter(xs), size);
+    }
 }
@@ -1,27 +1,57 @@
 package summary.compressor.freq;
 
 import org.eclipse.collections.api.list.primitive.DoubleList;
+import summary.accumulator.QuickSelect;
 
 public class ItemCountsUtil {
     public static double find_t(DoubleList counts, int s) {
-        double sumRest = counts.sum();
-        double curT = sumRest / s;
-        boolean foundTail = false;
-        int tailIdx;
-        for (tailIdx = 0; tailIdx < counts.size(); tailIdx++) {
-            if (tailIdx > 0) {
-                sumRest -= counts.get(tailIdx-1);
+        int n = counts.size();
+        double[] countArray = new double[n];
+        for (int i = 0; i < n; i++) {
+            countArray[i] = counts.get(i);
+        }
+        return find_t(countArray, n, s);
+    }
+
+    /**
+     * Finds the threshold t such that the items with counts of at least t
+     * plus the remaining mass at t per item fill s slots. Counts of rank k in
+     * descending order stop the search once they fall below the mass left
+     * after the heavier items divided by the s-k slots left, and those two
+     * sides split at one rank, so it is binary searched with quickselect in
+     * expected linear time.
+     * @param counts non-negative counts in any order, reordered in place
+     * @return t, or 0 when every item fits
+     */
+    public static double find_t(double[] counts, int n, int s) {
+        double total = 0;
+        for (int i = 0; i < n; i++) {
+            total += counts[i];
+        }
+        // descending rank r sits at index n-1-r once selected; ranks below lo
+        // fill counts[n-lo, n) and sum to headSum
+        int lo = 0;
+        int hi = n;
+        double headSum = 0;
+        double hiT = 0;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            int idx = n - 1 - mid;
+            double curCount = QuickSelect.select(counts, n - hi, n - lo, idx);
+            double aboveSum = 0;
+            for (int i = idx + 1; i < n - lo; i++) {
+                aboveSum += counts[i];
             }
-            curT = sumRest / (s - tailIdx);
-            if (counts.get(tailIdx) < curT) {
-                foundTail = true;
-                break;
+            double curT = (total - headSum - aboveSum) / (s - mid);
+            boolean stop = curCount < curT;
+            if (stop || mid > s) {
+                hi = mid;
+                hiT = stop ? curT : 0;
+            } else {
+                lo = mid + 1;
+                headSum += aboveSum + curCount;
             }
         }
-        if (!foundTail) {
-            curT = 0;
-            tailIdx = counts.size();
-        }
-        return curT;
+        return hiT;
     }
 }
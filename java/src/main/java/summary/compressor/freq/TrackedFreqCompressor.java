@@ -1,8 +1,8 @@
 package summary.compressor.freq;
 
 import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
-import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
 import summary.CounterLongSketch;
+import summary.accumulator.LongDoubleCounter;
 
 import java.util.List;
 
@@ -17,7 +17,7 @@ public class TrackedFreqCompressor implements ItemCounterCompressor {
     }
 
     @Override
-    public CounterLongSketch compress(LongDoubleHashMap xs, int size) {
+    public CounterLongSketch compress(LongDoubleCounter xs, int size) {
         int nTrack = xToTrack.size();
         long[] itemsToStore = new long[nTrack];
         double[] weightsToStore = new double[nTrack];
@@ -29,4 +29,9 @@ public class TrackedFreqCompressor implements ItemCounterCompressor {
         }
         return new CounterLongSketch(itemsToStore, weightsToStore);
     }
+
+    @Override
+    public boolean isStateless() {
+        return true;
+    }
 }
@@ -4,13 +4,13 @@ import org.eclipse.collections.api.list.MutableList;
 import org.eclipse.collections.api.tuple.primitive.LongDoublePair;
 import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
 import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
-import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
 import summary.CounterLongSketch;
 import summary.accumulator.ArgSort;
+import summary.accumulator.LongDoubleCounter;
 
 public class TruncationFreqCompressor implements ItemCounterCompressor {
     @Override
-    public CounterLongSketch compress(LongDoubleHashMap xs, int size) {
+    public CounterLongSketch compress(LongDoubleCounter xs, int size) {
         if (size >= xs.size()) {
             return CounterLongSketch.fromMap(xs);
         }
@@ -34,6 +34,11 @@ public class TruncationFreqCompressor implements ItemCounterCompressor {
             xToStore[i] = xList.get(curOrderedIdx);
             wToStore[i] = -negWeightList.get(curOrderedIdx);
         }
-        return new CounterLongSketch(xToStore, wToStore);
+        return new CounterLongSketch(xToStore, wToStore).sortValues();
+    }
+
+    @Override
+    public boolean isStateless() {
+        return true;
     }
 }
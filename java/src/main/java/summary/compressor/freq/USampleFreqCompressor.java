@@ -7,6 +7,7 @@ import org.apache.commons.math3.util.Pair;
 import org.eclipse.collections.impl.list.mutable.FastList;
 import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
 import summary.CounterLongSketch;
+import summary.accumulator.LongDoubleCounter;
 
 import java.util.Random;
 
@@ -18,10 +19,10 @@ public class USampleFreqCompressor implements ItemCounterCompressor {
     }
 
     @Override
-    public CounterLongSketch compress(LongDoubleHashMap xs, int size) {
+    public CounterLongSketch compress(LongDoubleCounter xs, int size) {
         int nItems = xs.size();
         if (nItems == 0) {
-            return new CounterLongSketch(new long[0], new double[0]);
+            return new CounterLongSketch(new long[0], new double[0], true);
         }
 
         FastList<Pair<Long, Double>> pmf = new FastList<>(nItems);
@@ -30,7 +30,10 @@ public class CoopQuantileCompressor implements SeqCounterCompressor {
         DoubleArrayList savedWeights = new DoubleArrayList(size);
 
         int n = xs.size();
-        int nDelta = xDeltas.length;
+        // Each stored point lowers the deltas from its index on, and since xs
+        // is sorted every later search range starts at or after that index,
+        // so one running shift stands in for the suffix updates.
+        double deltaShift = 0;
         int skip = (int)Math.ceil(n*1.0/size);
         int startIdx = 0;
         while (startIdx < n) {
@@ -46,14 +49,13 @@ public class CoopQuantileCompressor implements SeqCounterCompressor {
             int deltaEndIdx = trueCDF.searchItemIdx(rightValue)+1;
             int storedIdx = findOptimalStore(
                     xDeltas,
+                    deltaShift,
                     segmentSize,
                     deltaStartIdx,
                     deltaEndIdx
             );
             double toSave = deltaItems.get(storedIdx);
-            for (int i = storedIdx; i < nDelta; i++) {
-                xDeltas[i] -= segmentSize;
-            }
+            deltaShift += segmentSize;
 
             int numDistinctSaved = savedItems.size();
             if (!savedItems.isEmpty() && savedItems.getLast() == toSave) {
@@ -92,6 +94,20 @@ public class CoopQuantileCompressor implements SeqCounterCompressor {
             double curSegWeight,
             int startIdx,
             int endIdx
+    ) {
+        return findOptimalStore(deltaCDF, 0, curSegWeight, startIdx, endIdx);
+    }
+
+    /**
+     * @param deltaShift amount already stored in [startIdx, endIdx) but not
+     * yet subtracted from deltaCDF
+     */
+    public int findOptimalStore(
+            double[] deltaCDF,
+            double deltaShift,
+            double curSegWeight,
+            int startIdx,
+            int endIdx
     ) {
         double a = 1.0/Math.sqrt(1024);
         double scaleFactor = a / curSegWeight;
@@ -100,8 +116,9 @@ public class CoopQuantileCompressor implements SeqCounterCompressor {
         double bestCumLossDelta = Double.MAX_VALUE;
         double suffixCumLossDelta = 0.0;
         for (int curIdx = endIdx-1; curIdx >= startIdx; curIdx--) {
-            double deltaIfStored = (deltaCDF[curIdx] - curSegWeight)*scaleFactor;
-            double deltaCurrent = (deltaCDF[curIdx])*scaleFactor;
+            double curDelta = deltaCDF[curIdx] - deltaShift;
+            double deltaIfStored = (curDelta - curSegWeight)*scaleFactor;
+            double deltaCurrent = curDelta*scaleFactor;
             double lossDelta = fastcosh(deltaIfStored) - fastcosh(deltaCurrent);
 //            double lossIfStored = Math.cosh(
 //                    (deltaCDF[curIdx] - curSegWeight)*scaleFactor
@@ -10,4 +10,12 @@ public interface SeqCounterCompressor {
      * @return sorted item, weight pairs
      */
     CounterDoubleSketch compress(DoubleList xs, int size);
+
+    /**
+     * @return true when compress keeps no state between calls, so segments
+     * may be compressed concurrently and in any order
+     */
+    default boolean isStateless() {
+        return false;
+    }
 }
@@ -54,4 +54,9 @@ public class SkipQuantileCompressor implements SeqCounterCompressor {
                 savedWeights.toArray()
         );
     }
+
+    @Override
+    public boolean isStateless() {
+        return !isRandom;
+    }
 }
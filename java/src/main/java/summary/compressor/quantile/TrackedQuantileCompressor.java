@@ -39,4 +39,9 @@ public class TrackedQuantileCompressor implements SeqCounterCompressor {
                 weights
         );
     }
+
+    @Override
+    public boolean isStateless() {
+        return true;
+    }
 }
@@ -1,8 +1,11 @@
 package summary.custom;
 
+import summary.LongSketch;
 import summary.Sketch;
 
-public class CMSSketch implements Sketch<Long> {
+public class CMSSketch implements LongSketch {
+    private static final long serialVersionUID = -6670782220496030262L;
+
     PatchedCountMinSketch sketch;
     int width;
 
@@ -29,7 +32,7 @@ public class CMSSketch implements Sketch<Long> {
     }
 
     @Override
-    public double estimate(Long x) {
+    public double estimate(long x) {
         return sketch.estimateCount(x);
     }
 }
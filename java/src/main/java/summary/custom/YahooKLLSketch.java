@@ -3,6 +3,7 @@ package summary.custom;
 import org.apache.datasketches.frequencies.LongsSketch;
 import org.apache.datasketches.kll.KllFloatsSketch;
 import org.apache.datasketches.memory.Memory;
+import summary.DoubleSketch;
 import summary.Sketch;
 
 import java.io.Externalizable;
@@ -10,7 +11,9 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 
-public class YahooKLLSketch implements Sketch<Double>, Externalizable {
+public class YahooKLLSketch implements DoubleSketch, Externalizable {
+    private static final long serialVersionUID = -9003614806101685217L;
+
     int size;
     KllFloatsSketch sketch;
 
@@ -41,8 +44,8 @@ public class YahooKLLSketch implements Sketch<Double>, Externalizable {
     }
 
     @Override
-    public double estimate(Double x) {
-        return sketch.getRank(x.floatValue())*sketch.getN();
+    public double estimate(double x) {
+        return sketch.getRank((float) x)*sketch.getN();
     }
 
     @Override
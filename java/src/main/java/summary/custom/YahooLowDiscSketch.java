@@ -4,6 +4,7 @@ import org.apache.datasketches.memory.Memory;
 import org.apache.datasketches.quantiles.DoublesSketch;
 import org.apache.datasketches.quantiles.DoublesUnion;
 import org.apache.datasketches.quantiles.UpdateDoublesSketch;
+import summary.DoubleSketch;
 import summary.Sketch;
 
 import java.io.Externalizable;
@@ -11,7 +12,9 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 
-public class YahooLowDiscSketch implements Sketch<Double>, Externalizable {
+public class YahooLowDiscSketch implements DoubleSketch, Externalizable {
+    private static final long serialVersionUID = -5624777229497275255L;
+
     int size;
     DoublesSketch sketch;
 
@@ -46,7 +49,7 @@ public class YahooLowDiscSketch implements Sketch<Double>, Externalizable {
     }
 
     @Override
-    public double estimate(Double x) {
+    public double estimate(double x) {
         return sketch.getRank(x)*sketch.getN();
     }
 
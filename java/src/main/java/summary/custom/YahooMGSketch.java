@@ -2,6 +2,7 @@ package summary.custom;
 
 import org.apache.datasketches.frequencies.LongsSketch;
 import org.apache.datasketches.memory.Memory;
+import summary.LongSketch;
 import summary.Sketch;
 
 import java.io.Externalizable;
@@ -9,7 +10,9 @@ import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectOutput;
 
-public class YahooMGSketch implements Sketch<Long>, Externalizable {
+public class YahooMGSketch implements LongSketch, Externalizable {
+    private static final long serialVersionUID = -454499099741955139L;
+
     LongsSketch sketch;
     int size;
 
@@ -40,7 +43,7 @@ public class YahooMGSketch implements Sketch<Long>, Externalizable {
     }
 
     @Override
-    public double estimate(Long x) {
+    public double estimate(long x) {
         return sketch.getEstimate(x);
     }
 
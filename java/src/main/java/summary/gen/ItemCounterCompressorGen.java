@@ -2,37 +2,92 @@ package summary.gen;
 
 import org.eclipse.collections.api.list.primitive.LongList;
 import org.eclipse.collections.impl.list.mutable.FastList;
-import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
 import summary.CounterLongSketch;
 import summary.Sketch;
+import summary.accumulator.HeapLongDoubleCounter;
+import summary.accumulator.LongDoubleCounter;
 import summary.accumulator.MapFreqAccumulator;
 import summary.compressor.freq.ItemCounterCompressor;
 
-public class ItemCounterCompressorGen implements SketchGen<Long, LongList> {
+import java.util.function.IntFunction;
+
+public class ItemCounterCompressorGen implements PipelinedSketchGen<Long, LongList, LongDoubleCounter> {
     public ItemCounterCompressor compressor;
+    // builds a table sized for the given number of keys
+    IntFunction<LongDoubleCounter> counterGen;
+    // reused by generate when set, otherwise each call builds fresh heap maps
+    LongDoubleCounter counts;
+    LongDoubleCounter biasedCounts;
 
     public ItemCounterCompressorGen(ItemCounterCompressor c) {
         compressor = c;
     }
 
+    /**
+     * Counts each segment in tables from counterGen, cleared between calls.
+     */
+    public ItemCounterCompressorGen(ItemCounterCompressor c, IntFunction<LongDoubleCounter> counterGen) {
+        compressor = c;
+        this.counterGen = counterGen;
+        counts = counterGen.apply(0);
+        biasedCounts = counterGen.apply(0);
+    }
+
     @Override
     public FastList<Sketch<Long>> generate(LongList xs, int size, double bias) {
-        MapFreqAccumulator acc = new MapFreqAccumulator();
-        acc.addRaw(xs);
-
-        LongDoubleHashMap biasedCounts;
-        if (bias >= 1) {
-            biasedCounts = new LongDoubleHashMap(acc.values.size());
-            acc.values.forEachKeyValue((long k, double v) -> {
-                if (v > bias) {
-                    biasedCounts.put(k, v-bias);
-                }
-            });
+        LongDoubleCounter curCounts = counts;
+        if (curCounts == null) {
+            curCounts = new HeapLongDoubleCounter();
         } else {
-            biasedCounts = acc.values;
+            curCounts.clear();
+        }
+        if (biasedCounts != null) {
+            biasedCounts.clear();
+        }
+        return compress(count(xs, bias, curCounts, biasedCounts), size, bias);
+    }
+
+    /**
+     * Counts xs into fresh tables so calls may run concurrently. Tables from
+     * counterGen are sized for the whole segment so they never grow.
+     */
+    @Override
+    public LongDoubleCounter prepare(LongList xs, int size, double bias) {
+        LongDoubleCounter curCounts = counterGen == null ? new HeapLongDoubleCounter() : counterGen.apply(xs.size());
+        return count(xs, bias, curCounts, null);
+    }
+
+    /**
+     * @return counts of xs, less bias and dropping items at or below it when bias >= 1
+     */
+    LongDoubleCounter count(
+            LongList xs,
+            double bias,
+            LongDoubleCounter curCounts,
+            LongDoubleCounter curBiasedCounts
+    ) {
+        MapFreqAccumulator acc = new MapFreqAccumulator(curCounts);
+        acc.addRaw(xs);
+        if (bias < 1) {
+            return curCounts;
+        }
+        LongDoubleCounter biased = curBiasedCounts;
+        if (biased == null) {
+            biased = counterGen == null ? new HeapLongDoubleCounter(curCounts.size()) : counterGen.apply(curCounts.size());
         }
+        biased.ensureCapacity(curCounts.size());
+        LongDoubleCounter target = biased;
+        curCounts.forEachKeyValue((long k, double v) -> {
+            if (v > bias) {
+                target.put(k, v-bias);
+            }
+        });
+        return target;
+    }
 
-        CounterLongSketch sketch = compressor.compress(biasedCounts, size);
+    @Override
+    public FastList<Sketch<Long>> compress(LongDoubleCounter prepared, int size, double bias) {
+        CounterLongSketch sketch = compressor.compress(prepared, size);
         for (int i = 0; i < sketch.weights.length; i++){
             sketch.weights[i] += bias;
         }
@@ -41,4 +96,9 @@ public class ItemCounterCompressorGen implements SketchGen<Long, LongList> {
         sketches.add(sketch);
         return sketches;
     }
+
+    @Override
+    public boolean isIndependent() {
+        return compressor.isStateless();
+    }
 }
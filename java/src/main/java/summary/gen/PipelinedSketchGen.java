@@ -0,0 +1,26 @@
+package summary.gen;
+
+import org.eclipse.collections.api.PrimitiveIterable;
+import org.eclipse.collections.impl.list.mutable.FastList;
+import summary.Sketch;
+
+/**
+ * Generator split into a prepare step that touches no shared state and can
+ * run ahead on other threads, and a compress step that sees segments in order.
+ * @param <P> prepared form of a segment
+ */
+public interface PipelinedSketchGen<T, TL extends PrimitiveIterable, P> extends SketchGen<T, TL> {
+    P prepare(TL xs, int size, double bias);
+    FastList<Sketch<T>> compress(P prepared, int size, double bias);
+
+    /**
+     * @return true when compress keeps no state between segments, so whole
+     * segments may be generated in parallel
+     */
+    boolean isIndependent();
+
+    @Override
+    default FastList<Sketch<T>> generate(TL xs, int size, double bias) {
+        return compress(prepare(xs, size, bias), size, bias);
+    }
+}
@@ -1,12 +1,11 @@
 package summary.gen;
 
 import org.eclipse.collections.api.list.primitive.DoubleList;
-import org.eclipse.collections.api.list.primitive.MutableDoubleList;
 import org.eclipse.collections.impl.list.mutable.FastList;
 import summary.Sketch;
 import summary.compressor.quantile.SeqCounterCompressor;
 
-public class SeqCounterCompressorGen implements SketchGen<Double, DoubleList> {
+public class SeqCounterCompressorGen implements PipelinedSketchGen<Double, DoubleList, DoubleList> {
     public SeqCounterCompressor compressor;
 
     public SeqCounterCompressorGen(SeqCounterCompressor c) {
@@ -14,11 +13,20 @@ public class SeqCounterCompressorGen implements SketchGen<Double, DoubleList> {
     }
 
     @Override
-    public FastList<Sketch<Double>> generate(DoubleList xs, int size, double bias) {
-        MutableDoubleList xSorted = xs.toSortedList();
+    public DoubleList prepare(DoubleList xs, int size, double bias) {
+        return xs.toSortedList();
+    }
+
+    @Override
+    public FastList<Sketch<Double>> compress(DoubleList xSorted, int size, double bias) {
         Sketch<Double> sketch = compressor.compress(xSorted, size);
         FastList<Sketch<Double>> sketches = new FastList<>(1);
         sketches.add(sketch);
         return sketches;
     }
+
+    @Override
+    public boolean isIndependent() {
+        return compressor.isStateless();
+    }
 }
@@ -14,6 +14,7 @@ import org.eclipse.collections.impl.list.mutable.primitive.IntArrayList;
 import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.junit.Test;
 import runner.factory.FreqSketchGenFactory;
+import summary.CounterLongSketch;
 import summary.gen.ItemCounterCompressorGen;
 import summary.gen.SketchGen;
 import summary.accumulator.MapFreqAccumulator;
@@ -25,6 +26,7 @@ import tech.tablesaw.io.csv.CsvReadOptions;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.*;
 
@@ -121,4 +123,43 @@ public class BoardGenTest {
         double sum = xResults.sum();
         assertEquals(9.0, sum, 1e-10);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPipelinedGen() {
+        FastList<LongList> segments = new FastList<>();
+        FastList<LongList> dims = new FastList<>();
+        IntArrayList sizes = new IntArrayList();
+        LongArrayList biases = new LongArrayList();
+        for (int i = 0; i < 20; i++) {
+            LongArrayList curSegment = new LongArrayList();
+            for (int j = 0; j < 50; j++) {
+                curSegment.add((i * 7 + j * j) % 23);
+            }
+            segments.add(curSegment);
+            dims.add(LongArrayList.newListWith(i));
+            sizes.add(4);
+            biases.add(i % 2);
+        }
+        FreqSketchGenFactory factory = new FreqSketchGenFactory();
+        ForkJoinPool pool = new ForkJoinPool(3);
+        for (String sketchName : Lists.mutable.of("cooperative", "truncation")) {
+            StoryBoard<Long> expected = new BoardGen<>(
+                    factory.getSketchGen(sketchName, Lists.mutable.empty(), 20)
+            ).generate(segments, dims, sizes, biases);
+            BoardGen<Long, LongList> bGen = new BoardGen<>(
+                    factory.getSketchGen(sketchName, Lists.mutable.empty(), 20)
+            );
+            bGen.setPool(pool);
+            StoryBoard<Long> board = bGen.generate(segments, dims, sizes, biases);
+
+            assertEquals(expected.numRows(), board.numRows());
+            for (int i = 0; i < board.numRows(); i++) {
+                CounterLongSketch expectedSketch = (CounterLongSketch) expected.getSketch(i);
+                CounterLongSketch sketch = (CounterLongSketch) board.getSketch(i);
+                assertArrayEquals(expectedSketch.values, sketch.values);
+                assertArrayEquals(expectedSketch.weights, sketch.weights, 1e-10);
+            }
+        }
+        pool.shutdown();
+    }
+}
@@ -0,0 +1,92 @@
+package board;
+
+import board.planner.CubeFreqPlanner;
+import board.planner.PlanOptimizer;
+import board.query.CubeQueryProcessor;
+import board.query.RollupCubeProcessor;
+import org.eclipse.collections.api.factory.Maps;
+import org.eclipse.collections.api.list.primitive.DoubleList;
+import org.eclipse.collections.api.list.primitive.LongList;
+import org.eclipse.collections.impl.factory.Lists;
+import org.eclipse.collections.impl.factory.primitive.IntLists;
+import org.eclipse.collections.impl.factory.primitive.LongLists;
+import org.junit.Test;
+import runner.factory.FreqSketchGenFactory;
+import summary.gen.SketchGen;
+import tech.tablesaw.api.ColumnType;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.io.csv.CsvReadOptions;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+public class CubeRollupTest {
+    @Test
+    public void testRollupQuery() throws Exception {
+        ColumnType[] types = {ColumnType.LONG, ColumnType.LONG, ColumnType.LONG};
+        Table t = Table.read().usingOptions(CsvReadOptions
+                .builder("src/test/resources/small_cube.csv")
+                .columnTypes(types));
+
+        Map<String, Object> planParams = Maps.mutable.of(
+                "dimension_cols",
+                Lists.mutable.of("d1", "d2"),
+                "workload_prob",
+                .2
+        );
+        FreqSketchGenFactory factory = new FreqSketchGenFactory();
+        CubeFreqPlanner planner = new CubeFreqPlanner();
+        planner.setParams(planParams);
+        planner.plan(t, "x");
+        PlanOptimizer<LongList> planOptimizer = factory.getPlanOptimizer("top_values", true);
+        planOptimizer.setParams(planParams);
+        planOptimizer.optimizePlan(
+                planner.getSegments(),
+                planner.getDimensions(),
+                10
+        );
+
+        List<Long> xToTrack = Lists.mutable.of(1L, 2L, 3L);
+        SketchGen<Long, LongList> sGen = factory.getSketchGen("top_values", xToTrack, 0);
+        StoryBoard<Long> board = new BoardGen<>(sGen).generate(
+                planner.getSegments(),
+                planner.getDimensions(),
+                planOptimizer.getSpaces(),
+                planOptimizer.getBiases()
+        );
+
+        CubeRollup<Long> rollup = CubeRollup.build(
+                board,
+                IntLists.mutable.of(0),
+                factory.getAccumulator("top_values"),
+                0
+        );
+        assertTrue(rollup.board.numRows() < board.numRows());
+        assertTrue(rollup.covers(LongLists.mutable.of(1, -1)));
+        assertFalse(rollup.covers(LongLists.mutable.of(1, 0)));
+
+        CubeQueryProcessor<Long> qp = factory.getCubeQueryProcessor("top_values");
+        List<CubeRollup<Long>> rollups = Lists.mutable.empty();
+        rollups.add(rollup);
+        CubeQueryProcessor<Long> rollupQp = new RollupCubeProcessor<>(
+                factory.getCubeQueryProcessor("top_values"),
+                rollups
+        );
+        for (LongList filters : Lists.mutable.of(
+                LongLists.mutable.of(1, -1),
+                LongLists.mutable.of(1, 0)
+        )) {
+            qp.setDimensions(filters);
+            rollupQp.setDimensions(filters);
+            DoubleList expected = qp.query(board, xToTrack);
+            DoubleList results = rollupQp.query(board, xToTrack);
+            assertEquals(expected, results);
+            assertEquals(qp.total(), rollupQp.total(), 1e-10);
+        }
+        rollupQp.setDimensions(LongLists.mutable.of(1, -1));
+        rollupQp.query(board, xToTrack);
+        assertEquals(1, rollupQp.span());
+    }
+}
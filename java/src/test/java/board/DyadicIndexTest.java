@@ -0,0 +1,53 @@
+package board;
+
+import board.query.DyadicLinearAccProcessor;
+import board.query.LinearAccProcessor;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.primitive.DoubleList;
+import org.eclipse.collections.api.list.primitive.LongList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.junit.Test;
+import summary.CounterLongSketch;
+import summary.accumulator.MapFreqAccumulator;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class DyadicIndexTest {
+    @Test
+    public void testQuery() {
+        StoryBoard<Long> board = new StoryBoard<>(1);
+        for (int i = 0; i < 8; i++) {
+            CounterLongSketch sketch = new CounterLongSketch(
+                    new long[]{i % 3, 5},
+                    new double[]{i + 1.0, 1.0}
+            );
+            board.addSketches(LongArrayList.newListWith(i), Lists.fixedSize.of(sketch), i + 2.0);
+        }
+        board.pack();
+
+        StoryBoard<Long> index = DyadicIndex.build(board, new MapFreqAccumulator(), 3, 0);
+        assertEquals(8 + 4 + 2, index.numRows());
+
+        LinearAccProcessor<Long, LongList> qp = new LinearAccProcessor<>(new MapFreqAccumulator(), 0);
+        DyadicLinearAccProcessor<Long, LongList> indexQp = new DyadicLinearAccProcessor<>(
+                new MapFreqAccumulator(), 3, 0
+        );
+        List<Long> xToTrack = Lists.mutable.of(0L, 1L, 2L, 5L);
+        int[][] ranges = {{0, 8}, {1, 7}, {2, 3}, {3, 8}};
+        for (int[] range : ranges) {
+            qp.setRange(range[0], range[1]);
+            indexQp.setRange(range[0], range[1]);
+            DoubleList expected = qp.query(board, xToTrack);
+            DoubleList results = indexQp.query(index, xToTrack);
+            for (int i = 0; i < xToTrack.size(); i++) {
+                assertEquals(expected.get(i), results.get(i), 1e-10);
+            }
+            assertEquals(qp.total(), indexQp.total(), 1e-10);
+        }
+        indexQp.setRange(0, 8);
+        indexQp.query(index, xToTrack);
+        assertEquals(4, indexQp.span());
+    }
+}
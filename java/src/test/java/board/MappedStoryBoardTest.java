@@ -0,0 +1,63 @@
+package board;
+
+import board.query.LinearAccProcessor;
+import board.query.LinearQueryProcessor;
+import io.BoardFormatTest;
+import io.IOUtil;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.primitive.DoubleList;
+import org.eclipse.collections.api.list.primitive.LongList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
+import org.junit.Test;
+import summary.DictSketch;
+import summary.accumulator.MapFreqAccumulator;
+
+import java.io.File;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MappedStoryBoardTest {
+    @Test
+    public void testQuery() throws Exception {
+        StoryBoard<Long> board = BoardFormatTest.getLongBoard();
+        board.pack();
+        File tempFile = File.createTempFile("board_mapped", "temp");
+        tempFile.deleteOnExit();
+        IOUtil.writeBoard(board, tempFile);
+
+        StoryBoard<Long> mapped = IOUtil.mapBoard(tempFile);
+        assertTrue(mapped instanceof MappedStoryBoard);
+        assertEquals(board.numRows(), mapped.numRows());
+        assertEquals(board.dimensionCols, mapped.dimensionCols);
+        assertEquals(board.totalCol, mapped.totalCol);
+        assertEquals(7.0, mapped.getSketch(4).estimate(3L), 1e-10);
+
+        LinearQueryProcessor<Long> qp = new LinearAccProcessor<Long, LongList>(
+                new MapFreqAccumulator(),
+                0
+        );
+        List<Long> xToTrack = Lists.mutable.of(0L, 1L, 2L, 3L);
+        qp.setRange(1, 5);
+        DoubleList expected = qp.query(board, xToTrack);
+        DoubleList results = qp.query(mapped, xToTrack);
+        assertEquals(expected, results);
+    }
+
+    @Test
+    public void testSerializedRows() throws Exception {
+        StoryBoard<Long> board = new StoryBoard<>(1);
+        DictSketch sketch = new DictSketch(
+                LongDoubleHashMap.newWithKeysValues(3, 4.0)
+        );
+        board.addSketches(LongArrayList.newListWith(1), Lists.fixedSize.of(sketch), 4.0);
+        File tempFile = File.createTempFile("board_mapped", "temp");
+        tempFile.deleteOnExit();
+        IOUtil.writeBoard(board, tempFile);
+
+        StoryBoard<Long> mapped = IOUtil.mapBoard(tempFile);
+        assertEquals(1, mapped.numRows());
+        assertEquals(4.0, mapped.getSketch(0).estimate(3L), 1e-10);
+    }
+}
@@ -0,0 +1,104 @@
+package board;
+
+import board.query.LinearAccProcessor;
+import board.query.PrefixLinearAccProcessor;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.primitive.DoubleList;
+import org.eclipse.collections.api.list.primitive.LongList;
+import org.eclipse.collections.impl.factory.primitive.LongLists;
+import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.junit.Test;
+import summary.CounterDoubleSketch;
+import summary.CounterLongSketch;
+import summary.accumulator.MapFreqAccumulator;
+import summary.accumulator.MergingAccumulator;
+import summary.accumulator.SortedQuantileAccumulator;
+import summary.custom.YahooMGGen;
+
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class PrefixIndexTest {
+    @Test
+    public void testFreqQuery() {
+        StoryBoard<Long> board = new StoryBoard<>(1);
+        for (int i = 0; i < 10; i++) {
+            CounterLongSketch sketch = new CounterLongSketch(
+                    new long[]{i % 3, 5},
+                    new double[]{i + 1.0, 1.0}
+            );
+            board.addSketches(LongArrayList.newListWith(i), Lists.fixedSize.of(sketch), i + 2.0);
+        }
+        board.pack();
+
+        PrefixIndex<Long> index = PrefixIndex.build(board, new MapFreqAccumulator(), 3);
+        assertEquals(5, index.numCheckpoints());
+
+        LinearAccProcessor<Long, LongList> qp = new LinearAccProcessor<>(new MapFreqAccumulator(), 0);
+        PrefixLinearAccProcessor<Long, LongList> prefixQp = new PrefixLinearAccProcessor<>(
+                new MapFreqAccumulator(), index
+        );
+        List<Long> xToTrack = Lists.mutable.of(0L, 1L, 2L, 5L);
+        LongList xToTrackRaw = LongArrayList.newListWith(0, 1, 2, 5);
+        double[] rawResults = new double[xToTrack.size()];
+        for (int start = 0; start < 12; start++) {
+            for (int end = start; end < 14; end++) {
+                qp.setRange(start, end);
+                prefixQp.setRange(start, end);
+                DoubleList expected = qp.query(board, xToTrack);
+                DoubleList results = prefixQp.query(board, xToTrack);
+                prefixQp.query(board, xToTrackRaw, rawResults);
+                for (int i = 0; i < xToTrack.size(); i++) {
+                    assertEquals(expected.get(i), results.get(i), 1e-10);
+                    assertEquals(expected.get(i), rawResults[i], 1e-10);
+                }
+                assertEquals(qp.total(), prefixQp.total(), 1e-10);
+            }
+        }
+        prefixQp.setRange(1, 10);
+        prefixQp.query(board, xToTrack);
+        assertEquals(5, prefixQp.span());
+    }
+
+    @Test
+    public void testQuantileQuery() {
+        StoryBoard<Double> board = new StoryBoard<>(1);
+        for (int i = 0; i < 8; i++) {
+            // counter sketches hold their values in ascending order
+            CounterDoubleSketch sketch = i * 0.5 < 2.0
+                    ? new CounterDoubleSketch(new double[]{i * 0.5, 2.0}, new double[]{1.0, 2.0})
+                    : new CounterDoubleSketch(new double[]{2.0, i * 0.5}, new double[]{2.0, 1.0});
+            board.addSketches(LongArrayList.newListWith(i), Lists.fixedSize.of(sketch), 3.0);
+        }
+        PrefixIndex<Double> index = PrefixIndex.build(board, new SortedQuantileAccumulator(), 2);
+
+        LinearAccProcessor<Double, DoubleList> qp = new LinearAccProcessor<>(new SortedQuantileAccumulator(), 0);
+        PrefixLinearAccProcessor<Double, DoubleList> prefixQp = new PrefixLinearAccProcessor<>(
+                new SortedQuantileAccumulator(), index
+        );
+        List<Double> xToTrack = Lists.mutable.of(0.0, 1.0, 2.0, 3.5);
+        qp.setRange(1, 7);
+        prefixQp.setRange(1, 7);
+        DoubleList expected = qp.query(board, xToTrack);
+        DoubleList results = prefixQp.query(board, xToTrack);
+        double[] rawResults = new double[xToTrack.size()];
+        prefixQp.query(board, DoubleArrayList.newListWith(0.0, 1.0, 2.0, 3.5), rawResults);
+        for (int i = 0; i < xToTrack.size(); i++) {
+            assertEquals(expected.get(i), results.get(i), 1e-10);
+            assertEquals(expected.get(i), rawResults[i], 1e-10);
+        }
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testRejectsMergingAccumulator() {
+        StoryBoard<Long> board = new StoryBoard<>(1);
+        board.addSketches(
+                LongArrayList.newListWith(0),
+                Lists.fixedSize.of(new CounterLongSketch(new long[]{1}, new double[]{1.0})),
+                1.0
+        );
+        PrefixIndex.build(board, new MergingAccumulator<>(new YahooMGGen(), LongLists.immutable.empty()), 3);
+    }
+}
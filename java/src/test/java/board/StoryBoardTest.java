@@ -4,6 +4,7 @@ import org.eclipse.collections.api.factory.Lists;
 import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
 import org.junit.Test;
+import summary.CounterLongSketch;
 import summary.DictSketch;
 
 import java.io.*;
@@ -48,4 +49,64 @@ public class StoryBoardTest {
                 1e-10
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPack() {
+        StoryBoard<Long> board = new StoryBoard<>(1);
+        board.addSketches(
+                LongArrayList.newListWith(0),
+                Lists.fixedSize.of(
+                        new CounterLongSketch(new long[]{1, 2}, new double[]{3.0, 4.0}),
+                        new CounterLongSketch(new long[]{5}, new double[]{6.0})
+                ),
+                7.0
+        );
+        board.pack();
+        assertNotNull(board.packedCol);
+        assertEquals(2, board.numRows());
+        assertArrayEquals(new long[]{1, 2, 5}, board.packedCol.longValues);
+        assertArrayEquals(new int[]{0, 2, 3}, board.packedCol.offsets);
+        assertEquals(4.0, board.getSketch(0).estimate(2L), 1e-10);
+        assertEquals(6.0, board.getSketch(1).estimate(5L), 1e-10);
+    }
+
+    @Test
+    public void testSorted() {
+        StoryBoard<Long> board = new StoryBoard<>(1);
+        CounterLongSketch sketch = new CounterLongSketch(new long[]{1}, new double[]{1.0});
+        for (long t : new long[]{0, 1, 1, 3}) {
+            board.addSketches(LongArrayList.newListWith(t), Lists.fixedSize.of(sketch), 1.0);
+        }
+        assertTrue(board.sorted);
+        assertEquals(1, board.lowerBound(1));
+        assertEquals(3, board.lowerBound(2));
+        assertEquals(4, board.lowerBound(4));
+
+        board.addSketches(LongArrayList.newListWith(2), Lists.fixedSize.of(sketch), 1.0);
+        assertFalse(board.sorted);
+    }
+
+    @Test
+    public void testTierIndex() {
+        StoryBoard<Long> board = new StoryBoard<>(1);
+        CounterLongSketch sketch = new CounterLongSketch(new long[]{1}, new double[]{1.0});
+        board.addSketches(LongArrayList.newListWith(0), Lists.fixedSize.of(sketch), 1.0);
+        board.addSketches(LongArrayList.newListWith(1), Lists.fixedSize.of(sketch, sketch), 1.0);
+        assertEquals(0, board.findRow(0, 0));
+        assertEquals(2, board.findRow(1, 1));
+        assertEquals(-1, board.findRow(1, 0));
+        assertEquals(-1, board.findRow(3, 1));
+    }
+
+    @Test
+    public void testDimensionIndex() {
+        StoryBoard<Long> board = new StoryBoard<>(2);
+        CounterLongSketch sketch = new CounterLongSketch(new long[]{1}, new double[]{1.0});
+        for (int i = 0; i < 6; i++) {
+            board.addSketches(LongArrayList.newListWith(i % 2, i % 3), Lists.fixedSize.of(sketch), 1.0);
+        }
+        assertArrayEquals(new int[]{1, 3, 5}, board.getDimensionRows(0, 1).toArray());
+        assertArrayEquals(new int[]{2, 5}, board.getDimensionRows(1, 2).toArray());
+        assertTrue(board.getDimensionRows(1, 7).isEmpty());
+    }
+}
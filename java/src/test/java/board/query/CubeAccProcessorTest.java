@@ -19,6 +19,7 @@ import tech.tablesaw.io.csv.CsvReadOptions;
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 
 import static org.junit.Assert.*;
 
@@ -66,6 +67,25 @@ public class CubeAccProcessorTest {
         DoubleList results = qp.query(board, xToTrack);
         assertEquals(xToTrack.size(), results.size());
         assertEquals(6.0, results.get(0), 1e-10);
+
+        CubeQueryProcessor<Long> parallelQp = factory.getCubeQueryProcessor(
+                curSketchName,
+                new ForkJoinPool(2)
+        );
+        for (LongList filters : Lists.mutable.of(
+                LongLists.mutable.of(1, -1),
+                LongLists.mutable.of(-1, -1)
+        )) {
+            qp.setDimensions(filters);
+            parallelQp.setDimensions(filters);
+            DoubleList expected = qp.query(board, xToTrack);
+            DoubleList parallelResults = parallelQp.query(board, xToTrack);
+            for (int i = 0; i < xToTrack.size(); i++) {
+                assertEquals(expected.get(i), parallelResults.get(i), 1e-10);
+            }
+            assertEquals(qp.total(), parallelQp.total(), 1e-10);
+            assertEquals(qp.span(), parallelQp.span());
+        }
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,84 @@
+package board.query;
+
+import board.StoryBoard;
+import com.sun.management.ThreadMXBean;
+import org.eclipse.collections.api.list.primitive.LongList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.junit.Test;
+import summary.CounterLongSketch;
+import summary.accumulator.MapFreqAccumulator;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.*;
+
+public class DyadicLinearAccProcessorTest {
+    static final int N = 16;
+    static final int MAX_HEIGHT = 3;
+
+    /**
+     * Tier h holds one row per aligned block of 2^h segments, keyed by the
+     * block's last segment. Segment t counts item t % 4 with weight t + 1.
+     */
+    static StoryBoard<Long> buildBoard() {
+        StoryBoard<Long> board = new StoryBoard<>(1);
+        for (int h = 0; h < MAX_HEIGHT; h++) {
+            int len = 1 << h;
+            for (int start = 0; start < N; start += len) {
+                double[] weights = new double[4];
+                for (int t = start; t < start + len; t++) {
+                    weights[t % 4] += t + 1;
+                }
+                CounterLongSketch sketch = new CounterLongSketch(new long[]{0, 1, 2, 3}, weights);
+                board.addSketch(LongArrayList.newListWith(start + len - 1), h, sketch, len);
+            }
+        }
+        board.pack();
+        return board;
+    }
+
+    @Test
+    public void testMatchesScan() {
+        StoryBoard<Long> board = buildBoard();
+        LongList xToTrack = LongArrayList.newListWith(0, 1, 2, 3);
+        DyadicLinearAccProcessor<Long, LongList> qp = new DyadicLinearAccProcessor<>(
+                new MapFreqAccumulator(), MAX_HEIGHT, 0
+        );
+        double[] out = new double[4];
+        for (int start = 0; start < N; start++) {
+            for (int end = start + 1; end <= N; end++) {
+                qp.setRange(start, end);
+                qp.query(board, xToTrack, out);
+                double[] expected = new double[4];
+                for (int t = start; t < end; t++) {
+                    expected[t % 4] += t + 1;
+                }
+                assertArrayEquals(expected, out, 1e-10);
+                assertEquals(end - start, qp.total(), 1e-10);
+            }
+        }
+    }
+
+    @Test
+    public void testQueryAllocation() {
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        StoryBoard<Long> board = buildBoard();
+        LongList xToTrack = LongArrayList.newListWith(0, 1, 2, 3);
+        DyadicLinearAccProcessor<Long, LongList> qp = new DyadicLinearAccProcessor<>(
+                new MapFreqAccumulator(), MAX_HEIGHT, 0
+        );
+        double[] out = new double[4];
+        int nQueries = 10_000;
+        long allocated = 0;
+        for (int round = 0; round < 5; round++) {
+            long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+            for (int k = 0; k < nQueries; k++) {
+                qp.setRange(k % 5, N - k % 3);
+                qp.query(board, xToTrack, out);
+            }
+            allocated = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+        }
+        assertTrue(allocated < 1024);
+    }
+}
@@ -0,0 +1,132 @@
+package board.query;
+
+import board.StoryBoard;
+import io.BoardFormatTest;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.api.list.primitive.DoubleList;
+import org.eclipse.collections.api.list.primitive.IntList;
+import org.eclipse.collections.api.list.primitive.LongList;
+import org.eclipse.collections.impl.factory.primitive.IntLists;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.junit.Test;
+import com.sun.management.ThreadMXBean;
+import summary.CounterLongSketch;
+import summary.accumulator.MapFreqAccumulator;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+
+public class LinearAccProcessorTest {
+    @Test
+    public void testQueryBatch() {
+        List<Long> xToTrack = Lists.mutable.of(0L, 1L, 2L, 3L);
+        List<IntList> intervals = Lists.mutable.of(
+                IntLists.mutable.of(1, 5),
+                IntLists.mutable.of(0, 2),
+                IntLists.mutable.of(2, 4),
+                IntLists.mutable.of(3, 3),
+                IntLists.mutable.of(4, 8)
+        );
+        for (boolean packed : new boolean[]{false, true}) {
+            StoryBoard<Long> board = BoardFormatTest.getLongBoard();
+            if (packed) {
+                board.pack();
+            }
+            for (int accSize : new int[]{0, 2}) {
+                LinearAccProcessor<Long, LongList> qp = new LinearAccProcessor<>(
+                        MapFreqAccumulator::new,
+                        accSize
+                );
+                double[] totals = new double[intervals.size()];
+                int[] spans = new int[intervals.size()];
+                List<DoubleList> results = qp.queryBatch(board, xToTrack, intervals, totals, spans);
+                for (int k = 0; k < intervals.size(); k++) {
+                    qp.setRange(intervals.get(k).get(0), intervals.get(k).get(1));
+                    assertEquals(qp.query(board, xToTrack), results.get(k));
+                    assertEquals(qp.total(), totals[k], 1e-10);
+                    assertEquals(qp.span(), spans[k]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testPooledQuery() {
+        StoryBoard<Long> board = new StoryBoard<>(1);
+        for (int i = 0; i < 200; i++) {
+            long[] values = {i % 7, 7 + i % 5, 12 + i % 3};
+            double[] weights = {1 + i % 4, 2, 1 + i % 6};
+            board.addSketch(LongArrayList.newListWith(i), 0, new CounterLongSketch(values, weights).sortValues(), 4.0);
+        }
+        board.pack();
+        List<Long> xToTrack = Lists.mutable.of(0L, 3L, 8L, 13L);
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int accSize : new int[]{0, 3}) {
+            LinearAccProcessor<Long, LongList> sequential = new LinearAccProcessor<>(
+                    MapFreqAccumulator::new,
+                    accSize
+            );
+            LinearAccProcessor<Long, LongList> pooled = new LinearAccProcessor<>(
+                    MapFreqAccumulator::new,
+                    accSize
+            );
+            pooled.setPool(pool);
+            sequential.setRange(5, 190);
+            pooled.setRange(5, 190);
+            DoubleList expected = sequential.query(board, xToTrack);
+            DoubleList results = pooled.query(board, xToTrack);
+            for (int i = 0; i < xToTrack.size(); i++) {
+                assertEquals(expected.get(i), results.get(i), 1e-10);
+            }
+            assertEquals(sequential.span(), pooled.span());
+        }
+        pool.shutdown();
+    }
+
+    @Test
+    public void testQueryAllocation() {
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        StoryBoard<Long> board = new StoryBoard<>(1);
+        for (int i = 0; i < 5; i++) {
+            long[] values = new long[i];
+            double[] weights = new double[i];
+            for (int j = 0; j < i; j++) {
+                values[j] = j;
+                weights[j] = i + j;
+            }
+            board.addSketch(LongArrayList.newListWith(i), 0, new CounterLongSketch(values, weights), 10.0 * i);
+        }
+        board.pack();
+        List<Long> xToTrack = Lists.mutable.of(0L, 1L, 2L, 3L);
+        LongList xToTrackRaw = LongArrayList.newListWith(0, 1, 2, 3);
+        LinearAccProcessor<Long, LongList> qp = new LinearAccProcessor<>(
+                new MapFreqAccumulator(),
+                0
+        );
+        QueryContext ctx = new QueryContext(xToTrack.size());
+        qp.setRange(0, 5);
+        DoubleList trueResults = qp.query(board, xToTrack);
+        int nQueries = 10_000;
+        long allocated = 0;
+        for (int round = 0; round < 5; round++) {
+            long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+            for (int k = 0; k < nQueries; k++) {
+                qp.setRange(k % 3, 5);
+                qp.query(board, xToTrackRaw, ctx.results);
+                ctx.calcErrors(trueResults);
+            }
+            allocated = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+        }
+        // allowance for the counter calls themselves, far below one byte per query
+        assertTrue(allocated < 1024);
+        qp.setRange(0, 5);
+        qp.query(board, xToTrack, ctx.results);
+        for (int i = 0; i < xToTrack.size(); i++) {
+            assertEquals(trueResults.get(i), ctx.results[i], 1e-10);
+        }
+    }
+}
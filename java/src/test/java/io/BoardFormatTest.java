@@ -0,0 +1,114 @@
+package io;
+
+import board.StoryBoard;
+import org.eclipse.collections.api.factory.Lists;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
+import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
+import org.junit.Test;
+import summary.CounterDoubleSketch;
+import summary.CounterLongSketch;
+import summary.DictSketch;
+import summary.Sketch;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+public class BoardFormatTest {
+    public static StoryBoard<Long> getLongBoard() {
+        StoryBoard<Long> board = new StoryBoard<>(2);
+        for (int i = 0; i < 5; i++) {
+            long[] values = new long[i];
+            double[] weights = new double[i];
+            for (int j = 0; j < i; j++) {
+                values[j] = j;
+                weights[j] = i + j;
+            }
+            Sketch<Long> sketch = new CounterLongSketch(values, weights);
+            board.addSketches(LongArrayList.newListWith(i, i % 2), Lists.fixedSize.of(sketch), 10.0 * i);
+        }
+        return board;
+    }
+
+    @Test
+    public void testCounterLong() throws Exception {
+        StoryBoard<Long> board = getLongBoard();
+        File tempFile = File.createTempFile("board_columnar", "temp");
+        tempFile.deleteOnExit();
+        IOUtil.writeBoard(board, tempFile);
+        assertTrue(BoardFormat.isBoardFile(tempFile));
+
+        StoryBoard<Long> boardIn = IOUtil.loadBoard(tempFile);
+        assertEquals(board.dimensionCols, boardIn.dimensionCols);
+        assertEquals(board.tierCol, boardIn.tierCol);
+        assertEquals(board.totalCol, boardIn.totalCol);
+        assertEquals(5, boardIn.numRows());
+        assertEquals(0, boardIn.getSketch(0).size());
+        assertEquals(7.0, boardIn.getSketch(4).estimate(3L), 1e-10);
+        assertTrue(boardIn.sorted);
+        assertNotNull(boardIn.packedCol);
+        assertArrayEquals(new int[]{0, 0, 1, 3, 6, 10}, boardIn.packedCol.offsets);
+        assertFalse(boardIn.packedCol.sortedValues);
+    }
+
+    @Test
+    public void testSortedValues() throws Exception {
+        StoryBoard<Long> board = new StoryBoard<>(1);
+        Sketch<Long> sketch = new CounterLongSketch(new long[]{3, 1}, new double[]{1.0, 2.0}).sortValues();
+        board.addSketches(LongArrayList.newListWith(0), Lists.fixedSize.of(sketch), 3.0);
+        File tempFile = File.createTempFile("board_columnar", "temp");
+        tempFile.deleteOnExit();
+        IOUtil.writeBoard(board, tempFile);
+
+        StoryBoard<Long> boardIn = IOUtil.loadBoard(tempFile);
+        assertTrue(boardIn.packedCol.sortedValues);
+        assertTrue(((CounterLongSketch) boardIn.getSketch(0)).sorted);
+        assertEquals(2.0, boardIn.getSketch(0).estimate(1L), 1e-10);
+    }
+
+    @Test
+    public void testCounterDouble() throws Exception {
+        StoryBoard<Double> board = new StoryBoard<>(1);
+        Sketch<Double> sketch = new CounterDoubleSketch(
+                new double[]{1.0, 2.0, 3.0},
+                new double[]{5.0, 5.0, 2.0}
+        );
+        board.addSketches(LongArrayList.newListWith(0), Lists.fixedSize.of(sketch, sketch), 12.0);
+        File tempFile = File.createTempFile("board_columnar", "temp");
+        tempFile.deleteOnExit();
+        IOUtil.writeBoard(board, tempFile);
+
+        StoryBoard<Double> boardIn = IOUtil.loadBoard(tempFile);
+        assertEquals(board.tierCol, boardIn.tierCol);
+        assertEquals(24.0, boardIn.totalCol.get(1), 1e-10);
+        assertEquals(10.0, boardIn.getSketch(1).estimate(2.5), 1e-10);
+    }
+
+    @Test
+    public void testSerializedFallback() throws Exception {
+        StoryBoard<Long> board = new StoryBoard<>(1);
+        DictSketch sketch = new DictSketch(
+                LongDoubleHashMap.newWithKeysValues(3, 4.0)
+        );
+        board.addSketches(LongArrayList.newListWith(1), Lists.fixedSize.of(sketch), 4.0);
+        File tempFile = File.createTempFile("board_columnar", "temp");
+        tempFile.deleteOnExit();
+        IOUtil.writeBoard(board, tempFile);
+
+        StoryBoard<Long> boardIn = IOUtil.loadBoard(tempFile);
+        assertEquals(4.0, boardIn.getSketch(0).estimate(3L), 1e-10);
+    }
+
+    @Test
+    public void testLegacy() throws Exception {
+        StoryBoard<Long> board = getLongBoard();
+        File tempFile = File.createTempFile("board_serialize", "temp");
+        tempFile.deleteOnExit();
+        IOUtil.writeBoardSerialized(board, tempFile);
+        assertFalse(BoardFormat.isBoardFile(tempFile));
+
+        StoryBoard<Long> boardIn = IOUtil.loadBoard(tempFile);
+        assertEquals(board.dimensionCols, boardIn.dimensionCols);
+        assertEquals(7.0, boardIn.getSketch(4).estimate(3L), 1e-10);
+    }
+}
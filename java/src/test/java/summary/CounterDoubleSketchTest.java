@@ -15,4 +15,37 @@ public class CounterDoubleSketchTest {
         assertEquals(10.0, sketch.estimate(2.5), 1e-10);
     }
 
+    @Test
+    public void testRanks() {
+        double[] xs = {1.0, 2.0, 2.0, 3.0};
+        double[] weights = {5.0, 5.0, 1.0, 2.0};
+        CounterDoubleSketch sketch = new CounterDoubleSketch(xs, weights);
+        assertEquals(0.0, sketch.estimate(0.5), 1e-10);
+        assertEquals(11.0, sketch.estimate(2.0), 1e-10);
+        assertEquals(13.0, sketch.estimate(4.0), 1e-10);
+
+        double[] out = new double[4];
+        sketch.estimate(new double[]{0.0, 1.0, 2.5, 3.0}, out);
+        assertArrayEquals(new double[]{0.0, 5.0, 11.0, 13.0}, out, 1e-10);
+        sketch.estimate(new double[]{3.0, 0.0, 2.0, 1.5}, out);
+        assertArrayEquals(new double[]{13.0, 0.0, 11.0, 5.0}, out, 1e-10);
+    }
+
+    @Test
+    public void testMerge() {
+        CounterDoubleSketch s1 = new CounterDoubleSketch(
+                new double[]{1.0, 2.0, 4.0}, new double[]{1.0, 1.0, 1.0}
+        );
+        CounterDoubleSketch s2 = new CounterDoubleSketch(
+                new double[]{2.0, 3.0}, new double[]{2.0, 2.0}
+        );
+        CounterDoubleSketch merged = s1.merge(s2);
+        assertArrayEquals(new double[]{1.0, 2.0, 3.0, 4.0}, merged.values, 1e-10);
+        assertArrayEquals(new double[]{1.0, 3.0, 2.0, 1.0}, merged.weights, 1e-10);
+
+        CounterDoubleSketch capped = s1.merge(s2, 2);
+        assertTrue(capped.size() <= 3);
+        assertEquals(7.0, capped.estimate(10.0), 1e-10);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,114 @@
+package summary;
+
+import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
+import org.junit.Test;
+import summary.accumulator.OffHeapLongDoubleCounter;
+import summary.compressor.freq.TruncationFreqCompressor;
+
+import static org.junit.Assert.*;
+
+public class CounterLongSketchTest {
+    @Test
+    public void testSortedEstimate() {
+        CounterLongSketch sketch = new CounterLongSketch(
+                new long[]{7, 2, 5},
+                new double[]{1.0, 2.0, 3.0}
+        );
+        assertFalse(sketch.sorted);
+        assertEquals(3.0, sketch.estimate(5L), 1e-10);
+        sketch.sortValues();
+        assertTrue(sketch.sorted);
+        assertArrayEquals(new long[]{2, 5, 7}, sketch.values);
+        assertEquals(2.0, sketch.estimate(2L), 1e-10);
+        assertEquals(1.0, sketch.estimate(7L), 1e-10);
+        assertEquals(0.0, sketch.estimate(6L), 1e-10);
+
+        LongDoubleHashMap map = LongDoubleHashMap.newWithKeysValues(9, 4.0, 1, 5.0);
+        CounterLongSketch fromMap = CounterLongSketch.fromMap(map);
+        assertTrue(fromMap.sorted);
+        assertEquals(4.0, fromMap.estimate(9L), 1e-10);
+    }
+
+    @Test
+    public void testSortLarge() {
+        int n = 100;
+        long[] values = new long[n];
+        double[] weights = new double[n];
+        for (int i = 0; i < n; i++) {
+            values[i] = (i * 37L) % n - 50;
+            weights[i] = values[i] * 2.0;
+        }
+        CounterLongSketch sketch = new CounterLongSketch(values, weights).sortValues();
+        assertTrue(sketch.sorted);
+        for (int i = 0; i < n; i++) {
+            assertEquals(i - 50, sketch.values[i]);
+            assertEquals(2.0 * (i - 50), sketch.weights[i], 1e-10);
+        }
+
+        OffHeapLongDoubleCounter counter = new OffHeapLongDoubleCounter();
+        for (int i = 0; i < n; i++) {
+            counter.put(values[(i * 7) % n], i);
+        }
+        CounterLongSketch fromCounter = CounterLongSketch.fromMap(counter);
+        assertTrue(fromCounter.sorted);
+        for (int i = 0; i < n; i++) {
+            assertEquals(counter.get(fromCounter.values[i]), fromCounter.weights[i], 1e-10);
+            if (i > 0) {
+                assertTrue(fromCounter.values[i-1] < fromCounter.values[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testSortDuplicates() {
+        long[] values = new long[40];
+        double[] weights = new double[40];
+        for (int i = 0; i < 40; i++) {
+            values[i] = 40 - i;
+            weights[i] = i;
+        }
+        values[10] = 3;
+        CounterLongSketch sketch = new CounterLongSketch(values, weights).sortValues();
+        // repeated values are sorted but keep the linear scan, which finds the first copy
+        assertFalse(sketch.sorted);
+        assertEquals(1, sketch.values[0]);
+        assertEquals(10.0, sketch.estimate(3L), 1e-10);
+        assertEquals(37.0, sketch.weights[3], 1e-10);
+    }
+
+    @Test
+    public void testBatchEstimate() {
+        CounterLongSketch sketch = new CounterLongSketch(
+                new long[]{2, 5, 7},
+                new double[]{2.0, 3.0, 1.0},
+                true
+        );
+        double[] out = new double[5];
+        sketch.estimate(new long[]{1, 2, 5, 6, 9}, out);
+        assertArrayEquals(new double[]{0, 2.0, 3.0, 0, 0}, out, 1e-10);
+        sketch.estimate(new long[]{7, 2, 3, 5, 8}, out);
+        assertArrayEquals(new double[]{1.0, 2.0, 0, 3.0, 0}, out, 1e-10);
+    }
+
+    @Test
+    public void testMerge() {
+        CounterLongSketch s1 = new CounterLongSketch(
+                new long[]{1, 4, 6}, new double[]{1.0, 2.0, 3.0}, true
+        );
+        CounterLongSketch s2 = new CounterLongSketch(
+                new long[]{4, 2}, new double[]{5.0, 1.0}
+        );
+        CounterLongSketch hashMerged = s1.merge(s2);
+        assertArrayEquals(new long[]{1, 2, 4, 6}, hashMerged.values);
+        assertEquals(7.0, hashMerged.estimate(4L), 1e-10);
+
+        CounterLongSketch sortMerged = s1.merge(s2.sortValues());
+        assertArrayEquals(hashMerged.values, sortMerged.values);
+        assertArrayEquals(hashMerged.weights, sortMerged.weights, 1e-10);
+
+        CounterLongSketch capped = s1.merge(s2, new TruncationFreqCompressor(), 2);
+        assertEquals(2, capped.size());
+        assertEquals(7.0, capped.estimate(4L), 1e-10);
+        assertEquals(3.0, capped.estimate(6L), 1e-10);
+    }
+}
@@ -47,4 +47,13 @@ public class ListQuantileAccumulatorTest {
         assertEquals(trueRank, rankEstimates2.get(0), 1e-10);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testReIndex() {
+        ListQuantileAccumulator acc = new ListQuantileAccumulator();
+        acc.addRaw(DoubleArrayList.newListWith(3.0, -1.0, 3.0, 2.0, -1.0, 3.0));
+        acc.reIndex();
+        assertEquals(DoubleArrayList.newListWith(-1.0, 2.0, 3.0), acc.items);
+        assertEquals(DoubleArrayList.newListWith(2.0, 1.0, 3.0), acc.weights);
+    }
+
+}
@@ -2,7 +2,11 @@ package summary.accumulator;
 
 import org.eclipse.collections.impl.factory.Lists;
 import org.eclipse.collections.impl.factory.primitive.LongLists;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.junit.Test;
+import com.sun.management.ThreadMXBean;
+
+import java.lang.management.ManagementFactory;
 
 import static org.junit.Assert.*;
 
@@ -16,4 +20,68 @@ public class MapFreqAccumulatorTest {
         assertEquals(5.0, acc.estimate(Lists.mutable.of(1L)).get(0), 1e-10);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testCompressTies() {
+        MapFreqAccumulator acc = new MapFreqAccumulator();
+        acc.addRaw(LongLists.mutable.of(1, 1, 1, 2, 2, 3, 3, 4, 4, 5));
+        acc.compress(4);
+        assertEquals(2, acc.values.size());
+        assertEquals(2.0, acc.floor, 1e-10);
+        assertEquals(3.0, acc.estimate(Lists.mutable.of(1L)).get(0), 1e-10);
+        acc.addRaw(LongLists.mutable.of(6, 7, 8, 9, 9));
+        acc.compress(4);
+        assertEquals(2, acc.values.size());
+        assertEquals(4.0, acc.estimate(Lists.mutable.of(9L)).get(0), 1e-10);
+    }
+
+    @Test
+    public void testMerge() {
+        MapFreqAccumulator acc = new MapFreqAccumulator();
+        acc.addRaw(LongLists.mutable.of(1, 1, 1, 1, 1, 2, 2, 2, 3, 3, 4));
+        acc.compress(3);
+        MapFreqAccumulator other = new MapFreqAccumulator();
+        other.addRaw(LongLists.mutable.of(1, 3, 3, 5));
+        acc.merge(other);
+        assertEquals(6.0, acc.estimate(Lists.mutable.of(1L)).get(0), 1e-10);
+        assertEquals(1.0, acc.estimate(Lists.mutable.of(5L)).get(0), 1e-10);
+        assertEquals(0.0, acc.estimate(Lists.mutable.of(6L)).get(0), 1e-10);
+    }
+
+    @Test
+    public void testPrimitiveEstimate() {
+        MapFreqAccumulator acc = new MapFreqAccumulator();
+        acc.addRaw(LongLists.mutable.of(1, 1, 1, 2, 2, 5));
+        acc.compress(1);
+        double[] out = new double[3];
+        acc.estimate(LongLists.mutable.of(1, 2, 7), out);
+        assertArrayEquals(
+                acc.estimate(Lists.mutable.of(1L, 2L, 7L)).toArray(),
+                out,
+                1e-10
+        );
+    }
+
+    @Test
+    public void testCompressAllocation() {
+        ThreadMXBean threadBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        MapFreqAccumulator acc = new MapFreqAccumulator(new OffHeapLongDoubleCounter());
+        LongArrayList xs = new LongArrayList();
+        for (long x = 0; x < 100; x++) {
+            for (int c = 0; c <= x % 7; c++) {
+                xs.add(x);
+            }
+        }
+        long allocated = 0;
+        for (int round = 0; round < 5; round++) {
+            long startBytes = threadBean.getThreadAllocatedBytes(threadId);
+            for (int k = 0; k < 1000; k++) {
+                acc.addRaw(xs);
+                acc.compress(20);
+            }
+            allocated = threadBean.getThreadAllocatedBytes(threadId) - startBytes;
+        }
+        assertTrue(allocated < 1024);
+        assertTrue(acc.values.size() <= 20);
+    }
+}
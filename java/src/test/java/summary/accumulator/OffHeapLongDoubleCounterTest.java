@@ -0,0 +1,90 @@
+package summary.accumulator;
+
+import org.eclipse.collections.impl.factory.primitive.LongLists;
+import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class OffHeapLongDoubleCounterTest {
+    @Test
+    public void testMatchesHeapMap() {
+        OffHeapLongDoubleCounter counts = new OffHeapLongDoubleCounter();
+        LongDoubleHashMap expected = new LongDoubleHashMap();
+        Random r = new Random(0);
+        for (int i = 0; i < 20000; i++) {
+            long x = r.nextInt(500) - 50;
+            double w = r.nextDouble();
+            if (r.nextInt(4) == 0) {
+                counts.remove(x);
+                expected.remove(x);
+            } else {
+                counts.addToValue(x, w);
+                expected.addToValue(x, w);
+            }
+        }
+        assertEquals(expected.size(), counts.size());
+        assertEquals(expected.sum(), counts.sum(), 1e-6);
+        for (long x = -60; x < 460; x++) {
+            assertEquals(expected.getIfAbsent(x, -1), counts.getIfAbsent(x, -1), 1e-10);
+        }
+        int[] seen = new int[1];
+        counts.forEachKeyValue((long k, double v) -> {
+            assertEquals(expected.get(k), v, 1e-10);
+            seen[0]++;
+        });
+        assertEquals(expected.size(), seen[0]);
+    }
+
+    @Test
+    public void testClearKeepsCapacity() {
+        OffHeapLongDoubleCounter counts = new OffHeapLongDoubleCounter(1000);
+        int capacity = counts.capacity();
+        assertTrue(capacity >= 2000);
+        for (long x = 0; x < 1000; x++) {
+            counts.put(x, 1.0);
+        }
+        assertEquals(capacity, counts.capacity());
+        counts.clear();
+        assertEquals(0, counts.size());
+        assertEquals(-1.0, counts.getIfAbsent(0, -1), 1e-10);
+        assertEquals(-1.0, counts.getIfAbsent(5, -1), 1e-10);
+        counts.addToValue(5, 2.0);
+        assertEquals(2.0, counts.get(5), 1e-10);
+        assertEquals(capacity, counts.capacity());
+    }
+
+    @Test
+    public void testMapFreqAccumulator() {
+        MapFreqAccumulator acc = new MapFreqAccumulator(new OffHeapLongDoubleCounter());
+        acc.addRaw(LongLists.mutable.of(1, 1, 1, 1, 1, 2, 2, 2, 3, 3, 4));
+        acc.compress(3);
+        assertEquals(2, acc.values.size());
+        double[] out = new double[2];
+        acc.estimate(LongLists.mutable.of(1, 2), out);
+        assertEquals(5.0, out[0], 1e-10);
+        assertEquals(3.0, out[1], 1e-10);
+    }
+
+    @Test
+    public void testEnsureCapacity() {
+        OffHeapLongDoubleCounter counts = new OffHeapLongDoubleCounter();
+        counts.put(3, 1.0);
+        counts.ensureCapacity(1000);
+        int capacity = counts.capacity();
+        assertTrue(capacity >= 2000);
+        for (long x = 0; x < 1000; x++) {
+            counts.addToValue(x, 1.0);
+        }
+        assertEquals(capacity, counts.capacity());
+        assertEquals(2.0, counts.get(3), 1e-10);
+        assertEquals(1000, counts.size());
+    }
+
+    @Test(expected = RuntimeException.class)
+    public void testTooManyKeys() {
+        OffHeapLongDoubleCounter.capacityFor(OffHeapLongDoubleCounter.MAX_CAPACITY / 2 + 1);
+    }
+}
@@ -0,0 +1,26 @@
+package summary.accumulator;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class QuickSelectTest {
+    @Test
+    public void testSelect() {
+        Random r = new Random(0);
+        for (int trial = 0; trial < 50; trial++) {
+            int n = 1 + r.nextInt(200);
+            double[] xs = new double[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = r.nextInt(20);
+            }
+            double[] sorted = xs.clone();
+            Arrays.sort(sorted);
+            int k = r.nextInt(n);
+            assertEquals(sorted[k], QuickSelect.select(xs, 0, n, k), 0.0);
+        }
+    }
+}
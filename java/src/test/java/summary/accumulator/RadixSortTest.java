@@ -0,0 +1,48 @@
+package summary.accumulator;
+
+import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class RadixSortTest {
+    @Test
+    public void testArgSort() {
+        Random r = new Random(0);
+        RadixSort sorter = new RadixSort();
+        for (int n : new int[]{0, 1, 5, 32, 33, 1000}) {
+            double[] xs = new double[n];
+            for (int i = 0; i < n; i++) {
+                xs[i] = r.nextInt(50) - 25 + (r.nextBoolean() ? .5 : 0);
+            }
+            if (n > 4) {
+                xs[0] = Double.NEGATIVE_INFINITY;
+                xs[1] = Double.POSITIVE_INFINITY;
+                xs[2] = -1e-300;
+                xs[3] = 1e300;
+            }
+            double[] expected = xs.clone();
+            Arrays.sort(expected);
+
+            int[] order = sorter.argSort(new DoubleArrayList(xs));
+            for (int i = 0; i < n; i++) {
+                assertEquals(expected[i], xs[order[i]], 0.0);
+                assertEquals(expected[i], sorter.sortedValue(i), 0.0);
+                if (i > 0 && xs[order[i]] == xs[order[i-1]]) {
+                    assertTrue(order[i] > order[i-1]);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testSignedZerosTie() {
+        RadixSort sorter = new RadixSort();
+        double[] xs = {0.0, -1.0, -0.0, 0.0, -0.0};
+        int[] order = sorter.argSort(xs, xs.length);
+        assertArrayEquals(new int[]{1, 0, 2, 3, 4}, Arrays.copyOf(order, xs.length));
+    }
+}
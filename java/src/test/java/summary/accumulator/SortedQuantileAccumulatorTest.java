@@ -1,10 +1,17 @@
 package summary.accumulator;
 
+import board.StoryBoard;
 import org.eclipse.collections.api.factory.Lists;
 import org.eclipse.collections.api.list.primitive.DoubleList;
 import org.eclipse.collections.impl.factory.primitive.DoubleLists;
 import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
+import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.junit.Test;
+import summary.CounterDoubleSketch;
+import summary.Sketch;
+
+import java.util.Arrays;
+import java.util.List;
 
 import static org.junit.Assert.*;
 
@@ -59,4 +66,81 @@ public class SortedQuantileAccumulatorTest {
         assertEquals(34.0, rankEstimates.get(0), 1e-10);
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testAddSketches() {
+        List<Sketch<Double>> sketches = Lists.mutable.empty();
+        sketches.add(new CounterDoubleSketch(new double[]{1.0, 4.0}, new double[]{1.0, 2.0}));
+        sketches.add(new CounterDoubleSketch(new double[]{}, new double[]{}));
+        sketches.add(new CounterDoubleSketch(new double[]{2.0, 4.0, 6.0}, new double[]{1.0, 1.0, 3.0}));
+        sketches.add(new CounterDoubleSketch(new double[]{0.5, 6.0}, new double[]{2.0, 1.0}));
+        SortedQuantileAccumulator expected = new SortedQuantileAccumulator();
+        expected.addRaw(DoubleLists.mutable.of(4.0, 5.0));
+        SortedQuantileAccumulator acc = new SortedQuantileAccumulator();
+        acc.addRaw(DoubleLists.mutable.of(4.0, 5.0));
+        for (Sketch<Double> sketch : sketches) {
+            expected.addSketch(sketch);
+        }
+        acc.addSketches(sketches);
+        assertEquals(expected.items, acc.items);
+        assertEquals(expected.weights, acc.weights);
+    }
+
+    @Test
+    public void testAddBoardRows() {
+        StoryBoard<Double> board = new StoryBoard<>(1);
+        double[][] rowValues = {{1.0, 4.0}, {}, {2.0, 4.0, 6.0}, {0.5, 6.0}};
+        for (int i = 0; i < rowValues.length; i++) {
+            double[] weights = new double[rowValues[i].length];
+            Arrays.fill(weights, i + 1.0);
+            board.addSketch(LongArrayList.newListWith(i), 0, new CounterDoubleSketch(rowValues[i], weights), 1.0);
+        }
+        int[] rowIds = {0, 1, 3, 2};
+        SortedQuantileAccumulator expected = new SortedQuantileAccumulator();
+        for (int k = 0; k < 3; k++) {
+            expected.addSketch(board.getSketch(rowIds[k]));
+        }
+        for (boolean packed : new boolean[]{false, true}) {
+            if (packed) {
+                board.pack();
+            }
+            SortedQuantileAccumulator acc = new SortedQuantileAccumulator();
+            acc.addSketches(board, rowIds, 3);
+            assertEquals(expected.items, acc.items);
+            assertEquals(expected.weights, acc.weights);
+        }
+    }
+
+    @Test
+    public void testRepeatedBatches() {
+        List<Sketch<Double>> sketches = Lists.mutable.empty();
+        sketches.add(new CounterDoubleSketch(new double[]{1.0, 4.0}, new double[]{1.0, 2.0}));
+        sketches.add(new CounterDoubleSketch(new double[]{2.0, 4.0, 6.0}, new double[]{1.0, 1.0, 3.0}));
+        SortedQuantileAccumulator acc = new SortedQuantileAccumulator();
+        for (int nBatch = 1; nBatch <= 3; nBatch++) {
+            SortedQuantileAccumulator expected = new SortedQuantileAccumulator();
+            acc.reset();
+            for (int i = 0; i < nBatch; i++) {
+                for (Sketch<Double> sketch : sketches) {
+                    expected.addSketch(sketch);
+                }
+                acc.addSketches(sketches);
+            }
+            assertEquals(expected.items, acc.items);
+            assertEquals(expected.weights, acc.weights);
+        }
+        // more runs than any earlier batch
+        List<Sketch<Double>> wide = Lists.mutable.withAll(sketches);
+        wide.addAll(sketches);
+        wide.addAll(sketches);
+        acc.addSketches(wide);
+        assertEquals(4, acc.items.size());
+        assertEquals(48.0, acc.weights.sum(), 1e-10);
+    }
+
+    @Test(expected = AssertionError.class)
+    public void testRejectsUnsortedSketch() {
+        List<Sketch<Double>> sketches = Lists.mutable.empty();
+        sketches.add(new CounterDoubleSketch(new double[]{4.0, 1.0}, new double[]{1.0, 2.0}));
+        new SortedQuantileAccumulator().addSketches(sketches);
+    }
+}
@@ -3,8 +3,11 @@ package summary.compressor.freq;
 import org.eclipse.collections.impl.map.mutable.primitive.LongDoubleHashMap;
 import org.junit.Test;
 import summary.CounterLongSketch;
+import summary.accumulator.RadixSort;
 import summary.compressor.freq.CoopFreqCompressor;
 
+import java.util.Random;
+
 import static org.junit.Assert.*;
 
 public class CoopFreqCompressorTest {
@@ -25,4 +28,24 @@ public class CoopFreqCompressorTest {
         out = cf.compress(counts, size);
         assertEquals(6.0, out.estimate(3L), 1e-10);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testKeepSmallest() {
+        Random r = new Random(0);
+        int n = 200;
+        for (int k = 1; k <= n; k += 17) {
+            double[] vals = new double[n];
+            long[] items = new long[n];
+            for (int i = 0; i < n; i++) {
+                vals[i] = -r.nextInt(10);
+                items[i] = i;
+            }
+            int[] expected = new RadixSort().argSort(vals, n);
+            CoopFreqCompressor.keepSmallest(vals, items, n, k, new double[n]);
+            int[] order = new RadixSort().argSort(vals, k);
+            for (int i = 0; i < k; i++) {
+                assertEquals(expected[i], items[order[i]]);
+            }
+        }
+    }
+}
@@ -5,6 +5,9 @@ import org.eclipse.collections.impl.list.mutable.primitive.DoubleArrayList;
 import org.junit.Test;
 import summary.compressor.freq.ItemCountsUtil;
 
+import java.util.Arrays;
+import java.util.Random;
+
 import static org.junit.Assert.*;
 
 public class ItemCountsUtilTest {
@@ -16,4 +19,34 @@ public class ItemCountsUtilTest {
         assertEquals(5.0, tVal, 1e-10);
     }
 
+    @Test
+    public void testFindTUnsorted() {
+        Random r = new Random(0);
+        for (int trial = 0; trial < 500; trial++) {
+            int n = 1 + r.nextInt(200);
+            int s = 1 + r.nextInt(50);
+            double[] counts = new double[n];
+            for (int i = 0; i < n; i++) {
+                counts[i] = r.nextInt(4) == 0 ? r.nextInt(1000) : r.nextInt(5);
+            }
+            double[] sorted = counts.clone();
+            Arrays.sort(sorted);
+            DoubleArrayList descending = new DoubleArrayList(sorted).reverseThis();
+            assertEquals(findTSorted(descending, s), ItemCountsUtil.find_t(counts, n, s), 1e-10);
+        }
+    }
+
+    static double findTSorted(DoubleList counts, int s) {
+        double sumRest = counts.sum();
+        for (int k = 0; k < counts.size(); k++) {
+            if (k > 0) {
+                sumRest -= counts.get(k-1);
+            }
+            double curT = sumRest / (s - k);
+            if (counts.get(k) < curT) {
+                return curT;
+            }
+        }
+        return 0;
+    }
 }
\ No newline at end of file
@@ -6,6 +6,8 @@ import org.junit.Test;
 import summary.CounterDoubleSketch;
 import summary.accumulator.SortedQuantileAccumulator;
 
+import java.util.Random;
+
 import static org.junit.Assert.*;
 
 public class CoopQuantileCompressorTest {
@@ -41,4 +43,57 @@ public class CoopQuantileCompressorTest {
                 acc.estimate(Lists.mutable.of(500.0)).get(0),
                 1e-10);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testMatchesSuffixUpdates() {
+        CoopQuantileCompressor compress = new CoopQuantileCompressor();
+        CoopQuantileCompressor reference = new CoopQuantileCompressor();
+        Random r = new Random(0);
+        for (int segIdx = 0; segIdx < 20; segIdx++) {
+            DoubleArrayList xs = new DoubleArrayList(300);
+            for (int i = 0; i < 300; i++) {
+                xs.add(r.nextInt(100));
+            }
+            xs.sortThis();
+            int size = 1 + r.nextInt(40);
+            CounterDoubleSketch sketch = compress.compress(xs, size);
+            double[] expectedValues = compressBySuffixUpdates(reference, xs, size);
+            assertArrayEquals(expectedValues, sketch.values, 1e-10);
+        }
+    }
+
+    /**
+     * Stored values from subtracting each stored weight from every later delta.
+     */
+    static double[] compressBySuffixUpdates(CoopQuantileCompressor c, DoubleArrayList xs, int size) {
+        c.trueCDF.addRaw(xs);
+        double[] xDeltas = c.trueCDF.calcDelta(c.storedCDF);
+        DoubleArrayList savedItems = new DoubleArrayList();
+        DoubleArrayList savedWeights = new DoubleArrayList();
+        int n = xs.size();
+        int skip = (int)Math.ceil(n*1.0/size);
+        for (int startIdx = 0; startIdx < n; startIdx += skip) {
+            int endIdx = Math.min(startIdx + skip, n);
+            int segmentSize = endIdx - startIdx;
+            int storedIdx = c.findOptimalStore(
+                    xDeltas,
+                    segmentSize,
+                    c.trueCDF.searchItemIdx(xs.get(startIdx)),
+                    c.trueCDF.searchItemIdx(xs.get(endIdx-1))+1
+            );
+            for (int i = storedIdx; i < xDeltas.length; i++) {
+                xDeltas[i] -= segmentSize;
+            }
+            double toSave = c.trueCDF.items.get(storedIdx);
+            if (!savedItems.isEmpty() && savedItems.getLast() == toSave) {
+                int last = savedItems.size() - 1;
+                savedWeights.set(last, savedWeights.get(last) + segmentSize);
+            } else {
+                savedItems.add(toSave);
+                savedWeights.add(segmentSize);
+            }
+        }
+        c.storedCDF.add(savedItems, savedWeights);
+        return savedItems.toArray();
+    }
+}
@@ -4,7 +4,9 @@ import org.eclipse.collections.impl.list.mutable.FastList;
 import org.eclipse.collections.impl.list.mutable.primitive.LongArrayList;
 import org.junit.Test;
 import summary.Sketch;
+import summary.accumulator.OffHeapLongDoubleCounter;
 import summary.compressor.freq.HaircombCompressor;
+import summary.compressor.freq.TruncationFreqCompressor;
 
 import static org.junit.Assert.*;
 
@@ -19,4 +21,21 @@ public class ItemCounterCompressorGenTest {
         assertEquals(2.0, sketches.get(0).estimate(11L), 1e-10);
         assertEquals(0.0, sketches.get(0).estimate(1L), 1e-10);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testPrepareSizesTable() {
+        ItemCounterCompressorGen gen = new ItemCounterCompressorGen(
+                new TruncationFreqCompressor(),
+                OffHeapLongDoubleCounter::new
+        );
+        LongArrayList xs = new LongArrayList();
+        for (long x = 0; x < 1000; x++) {
+            xs.add(x % 20);
+        }
+        // sized for the segment length up front rather than grown to fit 20 keys
+        OffHeapLongDoubleCounter prepared = (OffHeapLongDoubleCounter) gen.prepare(xs, 10, 0);
+        assertEquals(20, prepared.size());
+        assertEquals(new OffHeapLongDoubleCounter(1000).capacity(), prepared.capacity());
+        assertEquals(10, gen.compress(prepared, 10, 0).get(0).size());
+    }
+}